@@ -0,0 +1,101 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import static regio_vinco.RegioVinco.FLAGS_FILE_PATH;
+import world_data.Region;
+
+/**
+ * This class records which game modes can be played on a map. For each of the
+ * map's sub regions it keeps a bit saying whether it has a capital, a leader
+ * and a flag, so a mode is available as soon as any sub region has what that
+ * mode needs. It's built once when the map is loaded, so picking which mode
+ * buttons to enable never has to look at the sub regions again.
+ *
+ * @author McKillaGorilla
+ */
+public class GameModeAvailability {
+    // THE GAME MODES
+    public static final String NAME_MODE = "name";
+    public static final String CAPITAL_MODE = "capital";
+    public static final String LEADER_MODE = "leader";
+    public static final String FLAG_MODE = "flag";
+
+    // THE SUB REGIONS, IN THE ORDER OF THE BITS BELOW
+    private ArrayList<String> subRegionNames;
+
+    // WHAT EACH SUB REGION HAS, ONE BIT PER SUB REGION
+    private BitSet hasCapital;
+    private BitSet hasLeader;
+    private BitSet hasFlag;
+
+    /**
+     * Builds the availability for a map by checking each of its sub regions.
+     * Note that this looks for flag files, so it's best done in the
+     * background along with the rest of the loading.
+     *
+     * @param subRegions All of the map's sub regions.
+     *
+     * @param path The directory the map's files are in.
+     */
+    public GameModeAvailability(ArrayList<Region> subRegions, String path) {
+	subRegionNames = new ArrayList();
+	hasCapital = new BitSet(subRegions.size());
+	hasLeader = new BitSet(subRegions.size());
+	hasFlag = new BitSet(subRegions.size());
+	for (int i = 0; i < subRegions.size(); i++) {
+	    Region subRegion = subRegions.get(i);
+	    String name = subRegion.getName();
+	    subRegionNames.add(name);
+	    if ((subRegion.getCapital() != null) && !subRegion.getCapital().isEmpty()) {
+		hasCapital.set(i);
+	    }
+	    if ((subRegion.getLeader() != null) && !subRegion.getLeader().isEmpty()) {
+		hasLeader.set(i);
+	    }
+	    if (new File(path + name + "/" + name + FLAGS_FILE_PATH).exists()) {
+		hasFlag.set(i);
+	    }
+	}
+    }
+
+    /**
+     * Tests to see if there is anything to play on this map in gameMode.
+     *
+     * @param gameMode One of the game modes.
+     *
+     * @return true if at least one sub region can be played in gameMode.
+     */
+    public boolean isAvailable(String gameMode) {
+	if (gameMode.equals(CAPITAL_MODE)) {
+	    return !hasCapital.isEmpty();
+	} else if (gameMode.equals(LEADER_MODE)) {
+	    return !hasLeader.isEmpty();
+	} else if (gameMode.equals(FLAG_MODE)) {
+	    return !hasFlag.isEmpty();
+	} else {
+	    return !subRegionNames.isEmpty();
+	}
+    }
+
+    public int getNumSubRegions() {
+	return subRegionNames.size();
+    }
+
+    public String getSubRegionName(int index) {
+	return subRegionNames.get(index);
+    }
+
+    public boolean hasCapital(int index) {
+	return hasCapital.get(index);
+    }
+
+    public boolean hasLeader(int index) {
+	return hasLeader.get(index);
+    }
+
+    public boolean hasFlag(int index) {
+	return hasFlag.get(index);
+    }
+}
@@ -0,0 +1,75 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import javafx.scene.image.Image;
+import static regio_vinco.RegioVinco.*;
+import world_data.Region;
+import world_data.RegionType;
+
+/**
+ * This class has everything shown when the mouse is over one of a map's sub
+ * regions on the navigation screen, which is the sub region's best results
+ * and, for nations, its flag. The flags are all decoded up front, when the
+ * map is loaded in the background, so hovering never waits on a decode. They
+ * are decoded straight to thumbnails no bigger than HOVER_FLAG_WIDTH by
+ * HOVER_FLAG_HEIGHT, and are kept here rather than in the game's image
+ * cache, so a map with many nations doesn't push everything else out of it.
+ * They go when the next map is loaded.
+ *
+ * Results aren't copied here, they come straight from the score store, which
+ * already has them in memory and so is always up to date.
+ *
+ * @author McKillaGorilla
+ */
+public class HoverStatsCache {
+    // WHERE THE RESULTS COME FROM
+    private ScoreStore scoreStore;
+
+    // THE FLAG THUMBNAIL OF EACH SUB REGION THAT HAS ONE
+    private HashMap<String, Image> flags;
+
+    /**
+     * Constructor that decodes the flags of all the sub regions that are
+     * nations. Note that this is meant to be done on a background thread.
+     *
+     * @param subRegions The map's sub regions.
+     *
+     * @param path The directory the map's files are in.
+     *
+     * @param initScoreStore Where to get the results from.
+     */
+    public HoverStatsCache(List<Region> subRegions, String path, ScoreStore initScoreStore) {
+	scoreStore = initScoreStore;
+	flags = new HashMap();
+	for (Region subRegion : subRegions) {
+	    if (subRegion.getType() == RegionType.NATION) {
+		String name = subRegion.getName();
+		File flagFile = new File(path + name + "/" + name + FLAGS_FILE_PATH);
+		if (flagFile.exists()) {
+		    Image flag = new Image(flagFile.toURI().toString(), HOVER_FLAG_WIDTH, HOVER_FLAG_HEIGHT, true, true);
+		    if (!flag.isError()) {
+			flags.put(name, flag);
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * @return The sub region's best results, or null if it's never been won.
+     */
+    public RegionScores getScores(String subRegionName) {
+	RegionScores scores = scoreStore.getScores(subRegionName);
+	return (scores == RegionScores.NO_SCORES) ? null : scores;
+    }
+
+    /**
+     * @return The sub region's flag thumbnail, or null if it isn't a nation
+     * or has no flag.
+     */
+    public Image getFlag(String subRegionName) {
+	return flags.get(subRegionName);
+    }
+}
@@ -0,0 +1,220 @@
+package regio_vinco;
+
+import java.io.File;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import javafx.scene.image.Image;
+
+/**
+ * This class makes sure each image file is only decoded once. Decoded images
+ * are kept, most recently used last, until their total size goes over the
+ * byte budget, at which point the least recently used ones are evicted. An
+ * evicted image is still held by a soft reference, so it can be had back for
+ * free unless the garbage collector has needed the room.
+ *
+ * Images are decoded without holding the cache's lock, since maps are loaded
+ * in the background and decoding a big image can take a while, and the GUI
+ * shouldn't have to wait for that just to get an icon that's already cached.
+ * An image that's asked for again while it's still being decoded isn't
+ * decoded twice, the second caller just waits for the first decode.
+ *
+ * The hit and miss counts are kept so the budget can be tuned.
+ *
+ * @author McKillaGorilla
+ */
+public class ImageCache {
+    // THE DEFAULT NUMBER OF BYTES OF DECODED IMAGES WE'LL HOLD ON TO
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    // DECODED IMAGES ARE STORED AS 4 BYTES PER PIXEL
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // THE IMAGES WE'RE HOLDING ON TO, IN LEAST TO MOST RECENTLY USED ORDER
+    private LinkedHashMap<String, Image> images;
+    private long maxBytes;
+    private long currentBytes;
+
+    // THE IMAGES WE'VE EVICTED, WHICH THE GARBAGE COLLECTOR MAY TAKE, AND
+    // WHERE IT TELLS US WHEN IT HAS, SO THEIR ENTRIES CAN GO TOO
+    private HashMap<String, EvictedImage> evictedImages;
+    private ReferenceQueue<Image> collectedImages;
+
+    // THE IMAGES BEING DECODED RIGHT NOW
+    private HashMap<String, CompletableFuture<Image>> decodingImages;
+
+    // FOR TUNING
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor for an empty cache.
+     *
+     * @param initMaxBytes The most bytes of decoded images to hold on to.
+     */
+    public ImageCache(long initMaxBytes) {
+	images = new LinkedHashMap(16, 0.75f, true);
+	maxBytes = initMaxBytes;
+	currentBytes = 0;
+	evictedImages = new HashMap();
+	collectedImages = new ReferenceQueue();
+	decodingImages = new HashMap();
+	hits = 0;
+	misses = 0;
+	evictions = 0;
+    }
+
+    // ACCESSOR METHODS
+
+    public synchronized long getHits() {
+	return hits;
+    }
+
+    public synchronized long getMisses() {
+	return misses;
+    }
+
+    public synchronized long getEvictions() {
+	return evictions;
+    }
+
+    public synchronized long getCurrentBytes() {
+	return currentBytes;
+    }
+
+    public long getMaxBytes() {
+	return maxBytes;
+    }
+
+    public synchronized int getNumImages() {
+	return images.size();
+    }
+
+    /**
+     * Provides the decoded image for the imagePath file, decoding it only if
+     * it isn't already cached. If another thread is decoding it right now,
+     * this waits for that decode rather than starting another one.
+     *
+     * @param imagePath Path and name of the image file.
+     *
+     * @return The image, or null if there is no such file.
+     */
+    public Image getImage(String imagePath) {
+	CompletableFuture<Image> decoding;
+	boolean alreadyDecoding;
+	synchronized (this) {
+	    Image image = getCachedImage(imagePath);
+	    if (image != null) {
+		hits++;
+		return image;
+	    }
+
+	    // MAYBE SOMEONE ELSE IS ALREADY DECODING IT
+	    decoding = decodingImages.get(imagePath);
+	    alreadyDecoding = (decoding != null);
+	    if (alreadyDecoding) {
+		hits++;
+	    } else {
+		misses++;
+		decoding = new CompletableFuture();
+		decodingImages.put(imagePath, decoding);
+	    }
+	}
+	if (alreadyDecoding) {
+	    return decoding.join();
+	}
+
+	// NOPE, WE HAVE TO DECODE IT, WHICH IS DONE WITHOUT THE LOCK
+	Image image = null;
+	try {
+	    if (new File(imagePath).exists()) {
+		image = new Image("file:" + imagePath);
+	    }
+	} finally {
+	    synchronized (this) {
+		decodingImages.remove(imagePath);
+		if (image != null) {
+		    cache(imagePath, image);
+		}
+	    }
+	    decoding.complete(image);
+	}
+	return image;
+    }
+
+    /**
+     * Throws away all the cached images, but keeps the counts.
+     */
+    public synchronized void clear() {
+	images.clear();
+	evictedImages.clear();
+	currentBytes = 0;
+    }
+
+    // HELPER METHOD FOR FINDING AN IMAGE WE ALREADY HAVE, INCLUDING ONE WE
+    // EVICTED THAT THE GARBAGE COLLECTOR HASN'T TAKEN YET
+    private Image getCachedImage(String imagePath) {
+	Image image = images.get(imagePath);
+	if (image != null) {
+	    return image;
+	}
+	purgeCollectedImages();
+	EvictedImage evictedImage = evictedImages.remove(imagePath);
+	if (evictedImage != null) {
+	    image = evictedImage.get();
+	    if (image != null) {
+		cache(imagePath, image);
+	    }
+	}
+	return image;
+    }
+
+    // HELPER METHOD FOR DROPPING THE ENTRIES OF EVICTED IMAGES THE GARBAGE
+    // COLLECTOR HAS TAKEN. NOTE THAT AN ENTRY MAY HAVE BEEN REPLACED SINCE
+    private void purgeCollectedImages() {
+	Reference<? extends Image> collected;
+	while ((collected = collectedImages.poll()) != null) {
+	    EvictedImage evictedImage = (EvictedImage)collected;
+	    evictedImages.remove(evictedImage.imagePath, evictedImage);
+	}
+    }
+
+    // HELPER METHOD FOR ADDING AN IMAGE AND THEN EVICTING THE LEAST
+    // RECENTLY USED IMAGES UNTIL WE'RE BACK UNDER BUDGET
+    private void cache(String imagePath, Image image) {
+	images.put(imagePath, image);
+	currentBytes += getNumBytes(image);
+	Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator();
+	while ((currentBytes > maxBytes) && it.hasNext()) {
+	    Map.Entry<String, Image> eldest = it.next();
+	    it.remove();
+	    currentBytes -= getNumBytes(eldest.getValue());
+	    evictedImages.put(eldest.getKey(), new EvictedImage(eldest.getKey(), eldest.getValue(), collectedImages));
+	    evictions++;
+	}
+    }
+
+    // HELPER METHOD FOR FINDING HOW MUCH ROOM A DECODED IMAGE TAKES
+    private static long getNumBytes(Image image) {
+	return (long)image.getWidth() * (long)image.getHeight() * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * An evicted image, which remembers its path so its entry can be found
+     * once the garbage collector has taken it.
+     */
+    private static class EvictedImage extends SoftReference<Image> {
+	private String imagePath;
+
+	EvictedImage(String initImagePath, Image image, ReferenceQueue<Image> queue) {
+	    super(image, queue);
+	    imagePath = initImagePath;
+	}
+    }
+}
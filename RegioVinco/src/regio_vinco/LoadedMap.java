@@ -0,0 +1,125 @@
+package regio_vinco;
+
+import java.util.ArrayList;
+import javafx.scene.image.Image;
+import world_data.Region;
+
+/**
+ * This class stores everything that was loaded in the background for a map,
+ * so that it can all be handed to the game at once on the JavaFX application
+ * thread.
+ *
+ * @author McKillaGorilla
+ */
+public class LoadedMap {
+    // WHICH MAP THIS IS AND WHERE ITS FILES ARE
+    private String regionName;
+    private String path;
+
+    // THE REGION AS READ FROM ITS DATA FILE, OR null IF THE WORLD ALREADY
+    // HAD ALL OF ITS SUB REGIONS
+    private Region loadedRegion;
+
+    // THE REGION'S SUB REGIONS
+    private ArrayList<Region> subRegions;
+
+    // THE PREPROCESSED MAP, OR null IF IT COULDN'T BE LOADED
+    private PreprocessedMap map;
+
+    // THE REGION'S FLAG, OR null IF IT DOESN'T HAVE ONE
+    private Image flagImage;
+
+    // WHAT'S SHOWN WHEN THE MOUSE IS OVER EACH SUB REGION
+    private HoverStatsCache hoverStats;
+
+    // WHICH GAME MODES CAN BE PLAYED ON THE MAP
+    private GameModeAvailability gameModeAvailability;
+
+    // THE SUB REGIONS THAT HAVE NO DATA OF THEIR OWN AND SO CAN'T BE PLAYED
+    private ArrayList<String> unplayableSubRegions;
+
+    // THE BEST RESULTS SO FAR FOR THIS REGION
+    private RegionScores scores;
+
+    /**
+     * Constructor for a map that has yet to be loaded.
+     *
+     * @param initRegionName The name of the region the map is for.
+     *
+     * @param initPath The directory the region's files are in.
+     */
+    public LoadedMap(String initRegionName, String initPath) {
+	regionName = initRegionName;
+	path = initPath;
+	subRegions = new ArrayList();
+	unplayableSubRegions = new ArrayList();
+    }
+
+    // ACCESSOR METHODS
+
+    public String getRegionName() {
+	return regionName;
+    }
+
+    public String getPath() {
+	return path;
+    }
+
+    public Region getLoadedRegion() {
+	return loadedRegion;
+    }
+
+    public ArrayList<Region> getSubRegions() {
+	return subRegions;
+    }
+
+    public PreprocessedMap getMap() {
+	return map;
+    }
+
+    public Image getFlagImage() {
+	return flagImage;
+    }
+
+    public HoverStatsCache getHoverStats() {
+	return hoverStats;
+    }
+
+    public GameModeAvailability getGameModeAvailability() {
+	return gameModeAvailability;
+    }
+
+    public ArrayList<String> getUnplayableSubRegions() {
+	return unplayableSubRegions;
+    }
+
+    public RegionScores getScores() {
+	return scores;
+    }
+
+    // MUTATOR METHODS
+
+    public void setLoadedRegion(Region initLoadedRegion) {
+	loadedRegion = initLoadedRegion;
+    }
+
+    public void setMap(PreprocessedMap initMap) {
+	map = initMap;
+    }
+
+    public void setFlagImage(Image initFlagImage) {
+	flagImage = initFlagImage;
+    }
+
+    public void setGameModeAvailability(GameModeAvailability initGameModeAvailability) {
+	gameModeAvailability = initGameModeAvailability;
+    }
+
+    public void setHoverStats(HoverStatsCache initHoverStats) {
+	hoverStats = initHoverStats;
+    }
+
+    public void setScores(RegionScores initScores) {
+	scores = initScores;
+    }
+}
@@ -0,0 +1,38 @@
+package regio_vinco;
+
+import java.util.HashMap;
+
+/**
+ * This class stores everything we learn about a map's pixels when it is
+ * preprocessed: the spans of all its border pixels, which get redrawn in
+ * black, and the spans of each of its sub regions.
+ *
+ * @author McKillaGorilla
+ */
+public class MapIndex {
+    // ALL THE PIXELS DRAWN IN THE MAP'S BORDER COLOR
+    private SubRegionSpans borderSpans;
+
+    // ALL THE PIXELS OF EACH SUB REGION, BY NAME
+    private HashMap<String, SubRegionSpans> subRegionSpans;
+
+    /**
+     * Constructor for a completed index.
+     *
+     * @param initBorderSpans The spans of all the border pixels.
+     *
+     * @param initSubRegionSpans The spans of each sub region, by name.
+     */
+    public MapIndex(SubRegionSpans initBorderSpans, HashMap<String, SubRegionSpans> initSubRegionSpans) {
+	borderSpans = initBorderSpans;
+	subRegionSpans = initSubRegionSpans;
+    }
+
+    public SubRegionSpans getBorderSpans() {
+	return borderSpans;
+    }
+
+    public HashMap<String, SubRegionSpans> getSubRegionSpans() {
+	return subRegionSpans;
+    }
+}
@@ -0,0 +1,317 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.scene.image.Image;
+import static regio_vinco.RegioVinco.*;
+import static regio_vinco.RegioVincoDataModel.makeArgb;
+import world_data.Region;
+import world_data.WorldDataManager;
+
+/**
+ * This class loads maps in the background so that the GUI never freezes while
+ * a map's image is decoded, its region data is parsed and validated, its
+ * pixels are indexed and its scores are looked up. All of that is done on a worker
+ * thread, and only once everything is ready is the finished map handed to the
+ * game, all at once, by a command the game runs before its next frame.
+ *
+ * Loads are done one at a time in the order they're requested, since a map
+ * can only be loaded once the map above it has been, so each one is only
+ * started after the previous one has been handed to the game.
+ *
+ * Maps may also be prefetched, as when the user hovers over a region they're
+ * likely to click next. Prefetches are loaded the same way, but on a low
+ * priority thread of their own, and are kept in a small cache until the
+ * matching load asks for them. Note that a prefetched map is only good until
+ * the next map is put up, since it was prepared from the world as it was
+ * when the prefetch started.
+ *
+ * @author McKillaGorilla
+ */
+public class MapLoader {
+    // THE GAME WE'RE LOADING MAPS FOR
+    private RegioVincoGame game;
+
+    // THE MOST PREFETCHED MAPS WE'LL HOLD ON TO AT ONCE
+    public static final int MAX_PREFETCHED_MAPS = 4;
+
+    // ALL THE HEAVY LIFTING IS DONE HERE
+    private ExecutorService worker;
+
+    // AND PREFETCHING IS DONE HERE, WHEN THERE'S NOTHING MORE IMPORTANT
+    // TO DO, SO IT NEVER SLOWS DOWN THE GAME OR AN ACTUAL LOAD
+    private ExecutorService prefetcher;
+
+    // THE PREFETCHES, OLDEST FIRST, BY MAP KEY. NOTE THAT THIS IS ALSO
+    // ONLY USED ON THE JAVAFX APPLICATION THREAD
+    private LinkedHashMap<String, CompletableFuture<LoadedMap>> prefetchedMaps;
+
+    // THE LOADS THAT HAVE BEEN REQUESTED BUT NOT YET STARTED. NOTE THAT
+    // THIS AND loading ARE ONLY EVER USED ON THE JAVAFX APPLICATION THREAD
+    private LinkedList<MapLoadRequest> pendingLoads;
+    private boolean loading;
+
+    /**
+     * Constructor for a loader with nothing to load yet.
+     *
+     * @param initGame The game the maps are for.
+     */
+    public MapLoader(RegioVincoGame initGame) {
+	game = initGame;
+	worker = Executors.newSingleThreadExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "Map Loader");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+	prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "Map Prefetcher");
+	    thread.setDaemon(true);
+	    thread.setPriority(Thread.MIN_PRIORITY);
+	    return thread;
+	});
+	prefetchedMaps = new LinkedHashMap<String, CompletableFuture<LoadedMap>>(MAX_PREFETCHED_MAPS, 0.75f, true) {
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<LoadedMap>> eldest) {
+		if (size() > MAX_PREFETCHED_MAPS) {
+		    // IF IT HASN'T STARTED YET IT NEVER WILL
+		    eldest.getValue().cancel(false);
+		    return true;
+		}
+		return false;
+	    }
+	};
+	pendingLoads = new LinkedList();
+	loading = false;
+    }
+
+    /**
+     * Accessor method for testing to see if a map is being loaded, in which
+     * case the current map should not respond to the user.
+     *
+     * @return true if any map is being or waiting to be loaded.
+     */
+    public boolean isLoading() {
+	return loading;
+    }
+
+    /**
+     * Requests that a map be loaded. Note that this must be called on the
+     * JavaFX application thread.
+     *
+     * @param regionName The region whose map should be loaded.
+     *
+     * @param path The directory the region's files are in.
+     *
+     * @param onLoaded Run on the JavaFX application thread once the map has
+     * been handed to the game, may be null.
+     */
+    public void load(String regionName, String path, Runnable onLoaded) {
+	pendingLoads.add(new MapLoadRequest(regionName, path, onLoaded));
+	if (!loading) {
+	    startNextLoad();
+	}
+    }
+
+    /**
+     * Starts loading a map in the background that will probably be asked
+     * for soon, unless it's already being prefetched. Note that this must be
+     * called on the JavaFX application thread.
+     *
+     * @param regionName The region whose map should be prefetched.
+     *
+     * @param path The directory the region's files are in.
+     */
+    public void prefetch(String regionName, String path) {
+	String key = path + regionName;
+	if (prefetchedMaps.get(key) == null) {
+	    prefetchedMaps.put(key, startBackgroundLoad(regionName, path, prefetcher, false));
+	}
+    }
+
+    // HELPER METHOD FOR STARTING THE NEXT REQUESTED LOAD, IF THERE IS ONE
+    private void startNextLoad() {
+	MapLoadRequest request = pendingLoads.poll();
+	if (request == null) {
+	    loading = false;
+	    return;
+	}
+	loading = true;
+
+	// USE THE PREFETCHED MAP IF THERE IS ONE, EVEN IF IT'S NOT DONE YET,
+	// BUT A PREFETCH CAN ONLY EVER BE USED ONCE
+	CompletableFuture<LoadedMap> load = prefetchedMaps.remove(request.path + request.regionName);
+	if ((load == null) || load.isCancelled()) {
+	    load = startBackgroundLoad(request.regionName, request.path, worker, true);
+	}
+	load.whenComplete((result, exception) -> game.postCommand(() -> finishLoad(request, result, exception)));
+    }
+
+    // HELPER METHOD FOR STARTING A LOAD ON THE executor THREAD. NOTE THAT
+    // WHAT THE LOAD NEEDS FROM THE WORLD IS TAKEN NOW, SINCE THE WORLD
+    // ITSELF MAY ONLY BE USED ON THE JAVAFX APPLICATION THREAD
+    private CompletableFuture<LoadedMap> startBackgroundLoad(String regionName, String path, Executor executor, boolean showPreview) {
+	LoadedMap loaded = new LoadedMap(regionName, path);
+	WorldDataManager world = game.getWorldDataManager();
+	Region region = world.getAllRegions().get(regionName);
+	WorldDataManager scratchWorld = null;
+	if ((region != null) && region.hasSubRegions()) {
+	    // WE ALREADY HAVE THIS REGION'S DATA, SO THERE'S NO NEED TO PARSE IT
+	    loaded.getSubRegions().addAll(region.getSubRegionsAL());
+	} else {
+	    scratchWorld = makeScratchWorld(world, region, regionName);
+	}
+	WorldDataManager worldToLoad = scratchWorld;
+	return CompletableFuture.supplyAsync(() -> loadInBackground(loaded, worldToLoad, showPreview), executor);
+    }
+
+    // HELPER METHOD FOR MAKING A SEPARATE WORLD TO PARSE A REGION'S DATA INTO.
+    // IT ONLY NEEDS THE REGION ITSELF AND ITS PARENT, SINCE THE PARENT'S TYPE
+    // DECIDES THE TYPE OF THE REGION
+    private WorldDataManager makeScratchWorld(WorldDataManager world, Region region, String regionName) {
+	WorldDataManager scratchWorld = new WorldDataManager();
+	scratchWorld.setWorldImporterExporter(world.getWorldImporterExporter());
+	if ((region != null) && (region.getParentRegion() != null)) {
+	    Region parent = new Region(region.getParentRegion().getName());
+	    parent.setType(region.getParentRegion().getType());
+	    Region stub = new Region(regionName);
+	    stub.setType(region.getType());
+	    stub.setParentRegion(parent);
+	    scratchWorld.addRegion(parent);
+	    scratchWorld.addRegion(stub);
+	}
+	return scratchWorld;
+    }
+
+    // THIS IS DONE ON A BACKGROUND THREAD, SO IT MUST NOT TOUCH THE GAME
+    private LoadedMap loadInBackground(LoadedMap loaded, WorldDataManager scratchWorld, boolean showPreview) {
+	String regionName = loaded.getRegionName();
+	String path = loaded.getPath();
+	loaded.setScores(game.getScoreStore().getScores(regionName));
+
+	// PARSE THE REGION DATA IF WE DON'T ALREADY HAVE IT
+	File xmlFile = new File(path + regionName + XML_FILE_PATH);
+	if ((scratchWorld != null) && scratchWorld.load(xmlFile)) {
+	    Region loadedRegion = scratchWorld.getAllRegions().get(regionName);
+	    loaded.setLoadedRegion(loadedRegion);
+	    loaded.getSubRegions().addAll(loadedRegion.getSubRegionsAL());
+	}
+	HashMap<Integer, String> argbToSubRegion = new HashMap();
+	for (Region subRegion : loaded.getSubRegions()) {
+	    argbToSubRegion.put(makeArgb(subRegion.getRed(), subRegion.getGreen(), subRegion.getBlue()), subRegion.getName());
+	}
+
+	// DECODE THE MAP AND SHOW IT AS IS WHILE WE FINISH PREPARING IT
+	File mapFile = new File(path + regionName + MAP_FILE_PATH);
+	Image mapImage = MapPreprocessor.decode(mapFile);
+	if (mapImage != null) {
+	    if (showPreview) {
+		game.postCommand(() -> game.showMapPreview(mapImage));
+	    }
+	    // A PREFETCH MAY NEVER BE USED, SO IT DOESN'T WRITE ANYTHING
+	    File indexFile = new File(path + regionName + MAP_INDEX_FILE_PATH);
+	    loaded.setMap(MapPreprocessor.load(mapImage, mapFile, xmlFile, indexFile, argbToSubRegion, showPreview));
+	}
+
+	// NOT EVERY REGION HAS A FLAG. NOTE THAT THIS WARMS THE GAME'S
+	// IMAGE CACHE TOO, SO THE FLAG SHOWS RIGHT AWAY WHEN HOVERED
+	Image flagImage = game.getImageCache().getImage(path + regionName + FLAGS_FILE_PATH);
+	if ((flagImage != null) && !flagImage.isError()) {
+	    loaded.setFlagImage(flagImage);
+	}
+
+	// AND THE FLAGS OF ITS SUB REGIONS, FOR WHEN THEY'RE HOVERED
+	loaded.setHoverStats(new HoverStatsCache(loaded.getSubRegions(), path, game.getScoreStore()));
+
+	// FIGURE OUT WHICH GAME MODES THE MAP HAS WHAT IT NEEDS FOR
+	loaded.setGameModeAvailability(new GameModeAvailability(loaded.getSubRegions(), path));
+
+	// SUB REGIONS WITHOUT DATA OF THEIR OWN CAN'T BE PLAYED
+	for (Region subRegion : loaded.getSubRegions()) {
+	    File subRegionXmlFile = new File(path + subRegion.getName() + "/" + subRegion.getName() + XML_FILE_PATH);
+	    if (!subRegionXmlFile.exists()) {
+		loaded.getUnplayableSubRegions().add(subRegion.getName());
+	    }
+	}
+	return loaded;
+    }
+
+    // BACK ON THE JAVAFX APPLICATION THREAD, GIVE THE FINISHED MAP TO THE
+    // GAME AND THEN MOVE ON TO THE NEXT ONE
+    private void finishLoad(MapLoadRequest request, LoadedMap loaded, Throwable exception) {
+	try {
+	    if (exception != null) {
+		System.out.println("map for " + request.regionName + " could not be loaded: " + exception);
+		game.mapLoadFailed(request.regionName);
+		return;
+	    }
+	    mergeLoadedRegion(loaded);
+	    game.applyLoadedMap(loaded);
+
+	    // NOW THAT A PREFETCHED MAP IS ACTUALLY SHOWN, ITS INDEX IS WORTH
+	    // SAVING. THE INDEX IS NEVER CHANGED, SO THE WORKER CAN READ IT
+	    PreprocessedMap map = loaded.getMap();
+	    if ((map != null) && (map.getUnsavedSourceHash() != null)) {
+		File indexFile = new File(loaded.getPath() + loaded.getRegionName() + MAP_INDEX_FILE_PATH);
+		worker.execute(() -> MapPreprocessor.saveIndex(map, indexFile));
+	    }
+
+	    // ANY OTHER PREFETCHES WERE MADE FROM THE WORLD AS IT WAS BEFORE
+	    // THIS MAP WENT UP, SO THEY CAN'T BE TRUSTED ANYMORE
+	    for (CompletableFuture<LoadedMap> prefetchedMap : prefetchedMaps.values()) {
+		prefetchedMap.cancel(false);
+	    }
+	    prefetchedMaps.clear();
+	    if (request.onLoaded != null) {
+		request.onLoaded.run();
+	    }
+	} finally {
+	    startNextLoad();
+	}
+    }
+
+    // HELPER METHOD FOR MOVING A REGION PARSED IN THE BACKGROUND INTO THE
+    // GAME'S WORLD, HOOKING ITS SUB REGIONS UP TO THE REGION ALREADY THERE
+    private void mergeLoadedRegion(LoadedMap loaded) {
+	Region loadedRegion = loaded.getLoadedRegion();
+	if (loadedRegion == null) {
+	    return;
+	}
+	WorldDataManager world = game.getWorldDataManager();
+	Region region = world.getRegion(loadedRegion.getName());
+	if (region == null) {
+	    world.addRegion(loadedRegion);
+	    region = loadedRegion;
+	} else {
+	    region.setType(loadedRegion.getType());
+	}
+	for (Region subRegion : loadedRegion.getSubRegionsAL()) {
+	    world.addRegion(subRegion);
+	    if (region != loadedRegion) {
+		subRegion.setParentRegion(region);
+		region.addSubRegion(subRegion);
+	    }
+	}
+    }
+
+    /**
+     * A single request to load a map.
+     */
+    private static class MapLoadRequest {
+	private String regionName;
+	private String path;
+	private Runnable onLoaded;
+
+	MapLoadRequest(String initRegionName, String initPath, Runnable initOnLoaded) {
+	    regionName = initRegionName;
+	    path = initPath;
+	    onLoaded = initOnLoaded;
+	}
+    }
+}
@@ -0,0 +1,220 @@
+package regio_vinco;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+/**
+ * This class keeps a copy of the map's pixels in a plain ARGB int array so
+ * that sub regions can be recolored with simple array fills. Rather than
+ * writing to the on screen image every time a region changes color, it
+ * remembers a short list of dirty rectangles and pushes just those to the
+ * image when flushed, which should be done once per frame. Each recolored
+ * region adds its bounding rectangle, which is merged with any rectangle it
+ * overlaps, so two regions on opposite sides of the map cost two small
+ * pushes rather than one that covers most of the map.
+ *
+ * @author McKillaGorilla
+ */
+public class MapPixelBuffer {
+    // THE IMAGE ON SCREEN THAT WE'RE BUFFERING
+    private WritableImage image;
+    private PixelWriter pixelWriter;
+    private int width;
+    private int height;
+
+    // ALL OF THE IMAGE'S PIXELS, ROW BY ROW
+    private int[] argbs;
+
+    // WE NEVER KEEP MORE THAN THIS MANY DIRTY RECTANGLES. PAST THAT, A NEW
+    // ONE IS MERGED WITH WHICHEVER RECTANGLE IT GROWS THE LEAST, SO A FRAME
+    // WITH MANY SCATTERED CHANGES STILL ONLY MAKES A FEW PUSHES
+    public static final int MAX_DIRTY_RECTS = 8;
+
+    // RECTANGLES COVERING ALL THE PIXELS CHANGED SINCE THE LAST FLUSH, NONE
+    // OF WHICH OVERLAP. NOTE THAT THE MAX VALUES ARE EXCLUSIVE
+    private int[] dirtyMinXs;
+    private int[] dirtyMinYs;
+    private int[] dirtyMaxXs;
+    private int[] dirtyMaxYs;
+    private int numDirtyRects;
+
+    /**
+     * Constructor for buffering the initImage. Note that it starts with a
+     * copy of all the image's current pixels.
+     *
+     * @param initImage The map image that will be displayed.
+     */
+    public MapPixelBuffer(WritableImage initImage) {
+	image = initImage;
+	pixelWriter = image.getPixelWriter();
+	width = (int)image.getWidth();
+	height = (int)image.getHeight();
+	argbs = new int[width * height];
+	image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argbs, 0, width);
+	initDirtyRects();
+    }
+
+    /**
+     * Constructor for buffering the initImage when its pixels are already
+     * known, which spares us from reading them back out of the image.
+     *
+     * @param initImage The map image that will be displayed.
+     *
+     * @param initArgbs The image's current pixels, which are copied.
+     */
+    public MapPixelBuffer(WritableImage initImage, int[] initArgbs) {
+	image = initImage;
+	pixelWriter = image.getPixelWriter();
+	width = (int)image.getWidth();
+	height = (int)image.getHeight();
+	argbs = Arrays.copyOf(initArgbs, width * height);
+	initDirtyRects();
+    }
+
+    private void initDirtyRects() {
+	dirtyMinXs = new int[MAX_DIRTY_RECTS];
+	dirtyMinYs = new int[MAX_DIRTY_RECTS];
+	dirtyMaxXs = new int[MAX_DIRTY_RECTS];
+	dirtyMaxYs = new int[MAX_DIRTY_RECTS];
+	numDirtyRects = 0;
+    }
+
+    // ACCESSOR METHODS
+
+    public WritableImage getImage() {
+	return image;
+    }
+
+    public int getWidth() {
+	return width;
+    }
+
+    public int getHeight() {
+	return height;
+    }
+
+    public int[] getArgbs() {
+	return argbs;
+    }
+
+    public boolean isDirty() {
+	return numDirtyRects > 0;
+    }
+
+    public int getNumDirtyRects() {
+	return numDirtyRects;
+    }
+
+    // MUTATOR METHODS
+
+    /**
+     * Colors all the pixels in spans with the argb color. Note that this
+     * only changes the buffer, the image is not changed until flush is called.
+     *
+     * @param spans The pixels to color.
+     *
+     * @param argb The color to use.
+     */
+    public void fillSpans(SubRegionSpans spans, int argb) {
+	int numSpans = spans.getNumSpans();
+	if (numSpans == 0) {
+	    return;
+	}
+	int minX = width;
+	int minY = height;
+	int maxX = 0;
+	int maxY = 0;
+	for (int i = 0; i < numSpans; i++) {
+	    int row = spans.getRow(i);
+	    int startX = spans.getStartX(i);
+	    int endX = spans.getEndX(i);
+	    int rowStart = row * width;
+	    Arrays.fill(argbs, rowStart + startX, rowStart + endX, argb);
+	    minX = Math.min(minX, startX);
+	    minY = Math.min(minY, row);
+	    maxX = Math.max(maxX, endX);
+	    maxY = Math.max(maxY, row + 1);
+	}
+	markDirty(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Adds a rectangle to the ones that will be pushed on the next flush,
+     * merging it with any that it overlaps.
+     */
+    public void markDirty(int minX, int minY, int maxX, int maxY) {
+	int i = 0;
+	while (i < numDirtyRects) {
+	    if ((minX < dirtyMaxXs[i]) && (dirtyMinXs[i] < maxX)
+		    && (minY < dirtyMaxYs[i]) && (dirtyMinYs[i] < maxY)) {
+		// TAKE THE OVERLAPPED ONE OUT AND START AGAIN WITH THE UNION,
+		// SINCE IT MAY NOW OVERLAP ONES WE'VE ALREADY CHECKED
+		minX = Math.min(minX, dirtyMinXs[i]);
+		minY = Math.min(minY, dirtyMinYs[i]);
+		maxX = Math.max(maxX, dirtyMaxXs[i]);
+		maxY = Math.max(maxY, dirtyMaxYs[i]);
+		removeDirtyRect(i);
+		i = 0;
+	    } else if ((i == numDirtyRects - 1) && (numDirtyRects == MAX_DIRTY_RECTS)) {
+		// NO ROOM, SO MERGE WITH THE ONE THAT GROWS THE LEAST
+		int closest = findClosestDirtyRect(minX, minY, maxX, maxY);
+		minX = Math.min(minX, dirtyMinXs[closest]);
+		minY = Math.min(minY, dirtyMinYs[closest]);
+		maxX = Math.max(maxX, dirtyMaxXs[closest]);
+		maxY = Math.max(maxY, dirtyMaxYs[closest]);
+		removeDirtyRect(closest);
+		i = 0;
+	    } else {
+		i++;
+	    }
+	}
+	dirtyMinXs[numDirtyRects] = minX;
+	dirtyMinYs[numDirtyRects] = minY;
+	dirtyMaxXs[numDirtyRects] = maxX;
+	dirtyMaxYs[numDirtyRects] = maxY;
+	numDirtyRects++;
+    }
+
+    // HELPER METHOD THAT FINDS THE DIRTY RECTANGLE WHOSE AREA WOULD GROW THE
+    // LEAST IF THE PROVIDED ONE WERE MERGED INTO IT
+    private int findClosestDirtyRect(int minX, int minY, int maxX, int maxY) {
+	int closest = 0;
+	long leastGrowth = Long.MAX_VALUE;
+	for (int i = 0; i < numDirtyRects; i++) {
+	    long unionArea = (long)(Math.max(maxX, dirtyMaxXs[i]) - Math.min(minX, dirtyMinXs[i]))
+		    * (Math.max(maxY, dirtyMaxYs[i]) - Math.min(minY, dirtyMinYs[i]));
+	    long growth = unionArea - ((long)(dirtyMaxXs[i] - dirtyMinXs[i]) * (dirtyMaxYs[i] - dirtyMinYs[i]));
+	    if (growth < leastGrowth) {
+		leastGrowth = growth;
+		closest = i;
+	    }
+	}
+	return closest;
+    }
+
+    // HELPER METHOD THAT REMOVES A DIRTY RECTANGLE BY MOVING THE LAST ONE
+    // INTO ITS PLACE, SINCE THEIR ORDER DOESN'T MATTER
+    private void removeDirtyRect(int i) {
+	numDirtyRects--;
+	dirtyMinXs[i] = dirtyMinXs[numDirtyRects];
+	dirtyMinYs[i] = dirtyMinYs[numDirtyRects];
+	dirtyMaxXs[i] = dirtyMaxXs[numDirtyRects];
+	dirtyMaxYs[i] = dirtyMaxYs[numDirtyRects];
+    }
+
+    /**
+     * Pushes everything that changed since the last flush to the image, one
+     * call per dirty rectangle. If nothing changed, the image isn't touched.
+     */
+    public void flush() {
+	PixelFormat<IntBuffer> format = PixelFormat.getIntArgbInstance();
+	for (int i = 0; i < numDirtyRects; i++) {
+	    int offset = (dirtyMinYs[i] * width) + dirtyMinXs[i];
+	    pixelWriter.setPixels(dirtyMinXs[i], dirtyMinYs[i], dirtyMaxXs[i] - dirtyMinXs[i], dirtyMaxYs[i] - dirtyMinYs[i], format, argbs, offset, width);
+	}
+	numDirtyRects = 0;
+    }
+}
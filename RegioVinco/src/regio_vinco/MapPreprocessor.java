@@ -0,0 +1,275 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+
+/**
+ * This class prepares a map for play. It decodes the map image once, then in a
+ * single pass over its raw pixels it both redraws the orange borders in black
+ * and builds the spans for every sub region. If the spans were already saved
+ * in the map's index file, the pass is skipped entirely and only the saved
+ * border spans are filled in.
+ *
+ * Since every row can be scanned on its own, the pass is split into stripes of
+ * rows that are scanned in parallel on the common fork join pool, after which
+ * the partial spans from each stripe are joined back together in row order.
+ *
+ * @author McKillaGorilla
+ */
+public class MapPreprocessor {
+    // THE BORDERS ARE DRAWN IN ORANGE IN THE MAP FILES, BUT WE SHOW THEM IN BLACK
+    public static final int BORDER_ARGB = 0xFFDC6E00;
+    public static final int BORDER_REPLACEMENT_ARGB = 0xFF000000;
+
+    // STRIPES WITH NO MORE ROWS THAN THIS ARE SCANNED WITHOUT SPLITTING
+    public static final int STRIPE_ROWS = 32;
+
+    /**
+     * Loads and preprocesses a map.
+     *
+     * @param mapFile The map's image file.
+     *
+     * @param xmlFile The map's region data file.
+     *
+     * @param indexFile Where the map's spans are cached.
+     *
+     * @param argbToSubRegion Maps each sub region's ARGB color to its name.
+     *
+     * @return The preprocessed map, or null if the image could not be loaded.
+     */
+    public static PreprocessedMap load(File mapFile, File xmlFile, File indexFile, HashMap<Integer, String> argbToSubRegion) {
+	Image image = decode(mapFile);
+	if (image == null) {
+	    return null;
+	}
+	return load(image, mapFile, xmlFile, indexFile, argbToSubRegion, true);
+    }
+
+    /**
+     * Decodes a map's image file. Note that this may be safely done off of
+     * the JavaFX application thread.
+     *
+     * @param mapFile The map's image file.
+     *
+     * @return The decoded image, or null if it could not be loaded.
+     */
+    public static Image decode(File mapFile) {
+	if (!mapFile.exists()) {
+	    return null;
+	}
+	Image image = new Image(mapFile.toURI().toString());
+	if (image.isError()) {
+	    return null;
+	}
+	return image;
+    }
+
+    /**
+     * Preprocesses a map whose image has already been decoded.
+     *
+     * @param image The map's decoded image.
+     *
+     * @param mapFile The map's image file.
+     *
+     * @param xmlFile The map's region data file.
+     *
+     * @param indexFile Where the map's spans are cached.
+     *
+     * @param argbToSubRegion Maps each sub region's ARGB color to its name.
+     *
+     * @param saveIndex If true, a newly made index is saved to indexFile right
+     * away. Otherwise nothing is written, and the map keeps what's needed to
+     * save it later with saveIndex.
+     *
+     * @return The preprocessed map.
+     */
+    public static PreprocessedMap load(Image image, File mapFile, File xmlFile, File indexFile, HashMap<Integer, String> argbToSubRegion, boolean saveIndex) {
+	int width = (int)image.getWidth();
+	int height = (int)image.getHeight();
+	int[] argbs = new int[width * height];
+	image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argbs, 0, width);
+
+	// USE THE SAVED INDEX IF THERE IS A VALID ONE, OTHERWISE MAKE ONE
+	byte[] sourceHash = SubRegionSpanCache.hashFiles(mapFile, xmlFile);
+	MapIndex index = SubRegionSpanCache.load(indexFile, sourceHash, width, height);
+	boolean madeIndex = (index == null);
+	if (madeIndex) {
+	    index = preprocess(argbs, width, height, argbToSubRegion);
+	} else {
+	    fillSpans(argbs, width, index.getBorderSpans(), BORDER_REPLACEMENT_ARGB);
+	}
+	SubRegionLabelMap labels = SubRegionLabelMap.build(index.getSubRegionSpans(), argbToSubRegion, width, height);
+	PreprocessedMap map = new PreprocessedMap(width, height, argbs, index, labels);
+	if (madeIndex) {
+	    map.setUnsavedSourceHash(sourceHash);
+	    if (saveIndex) {
+		saveIndex(map, indexFile);
+	    }
+	}
+	return map;
+    }
+
+    /**
+     * Saves a map's index to the span cache if it was made by load but not
+     * saved yet, otherwise does nothing.
+     *
+     * @param map A map made by load.
+     *
+     * @param indexFile Where the map's spans are cached.
+     */
+    public static void saveIndex(PreprocessedMap map, File indexFile) {
+	byte[] sourceHash = map.getUnsavedSourceHash();
+	if (sourceHash != null) {
+	    map.setUnsavedSourceHash(null);
+	    SubRegionSpanCache.save(indexFile, sourceHash, map.getWidth(), map.getHeight(), map.getIndex());
+	}
+    }
+
+    /**
+     * Does the single pass over the map's pixels, row by row. Neighboring
+     * pixels of the same color are grouped into a run first, so each run is
+     * only looked up once. Border runs are redrawn in black as we go and sub
+     * region runs are recorded as spans. The rows are scanned in parallel
+     * stripes, but the resulting spans are still in row order.
+     *
+     * @param argbs The map's pixels in ARGB format, row by row. Note that the
+     * borders are redrawn in this array.
+     *
+     * @param width The width of the map in pixels.
+     *
+     * @param height The height of the map in pixels.
+     *
+     * @param argbToSubRegion Maps each sub region's ARGB color to its name.
+     *
+     * @return The border and sub region spans.
+     */
+    public static MapIndex preprocess(int[] argbs, int width, int height, HashMap<Integer, String> argbToSubRegion) {
+	MapIndex index = ForkJoinPool.commonPool().invoke(new StripeTask(argbs, width, 0, height, argbToSubRegion));
+
+	// REGIONS THAT AREN'T ON THE MAP AT ALL STILL GET EMPTY SPANS
+	HashMap<String, SubRegionSpans> subRegionSpans = index.getSubRegionSpans();
+	for (String subRegion : argbToSubRegion.values()) {
+	    if (!subRegionSpans.containsKey(subRegion)) {
+		subRegionSpans.put(subRegion, new SubRegionSpans());
+	    }
+	}
+	index.getBorderSpans().trim();
+	for (SubRegionSpans spans : subRegionSpans.values()) {
+	    spans.trim();
+	}
+	return index;
+    }
+
+    /**
+     * Scans the rows from startRow up to, but not including, endRow. This is
+     * the work done for a single stripe.
+     *
+     * @return The border and sub region spans found in those rows. Note that
+     * only regions that were actually found get an entry.
+     */
+    public static MapIndex preprocessRows(int[] argbs, int width, int startRow, int endRow, HashMap<Integer, String> argbToSubRegion) {
+	SubRegionSpans borderSpans = new SubRegionSpans();
+	HashMap<String, SubRegionSpans> subRegionSpans = new HashMap();
+	for (int y = startRow; y < endRow; y++) {
+	    int rowStart = y * width;
+	    int x = 0;
+	    while (x < width) {
+		// FIND THE END OF THIS RUN OF SAME COLORED PIXELS
+		int argb = argbs[rowStart + x];
+		int runEnd = x + 1;
+		while ((runEnd < width) && (argbs[rowStart + runEnd] == argb)) {
+		    runEnd++;
+		}
+
+		// AND DEAL WITH IT ACCORDING TO WHAT IT IS
+		if (argb == BORDER_ARGB) {
+		    for (int i = rowStart + x; i < rowStart + runEnd; i++) {
+			argbs[i] = BORDER_REPLACEMENT_ARGB;
+		    }
+		    borderSpans.addSpan(y, x, runEnd);
+		} else {
+		    String subRegion = argbToSubRegion.get(argb);
+		    if (subRegion != null) {
+			SubRegionSpans spans = subRegionSpans.get(subRegion);
+			if (spans == null) {
+			    spans = new SubRegionSpans();
+			    subRegionSpans.put(subRegion, spans);
+			}
+			spans.addSpan(y, x, runEnd);
+		    }
+		}
+		x = runEnd;
+	    }
+	}
+	return new MapIndex(borderSpans, subRegionSpans);
+    }
+
+    /**
+     * This task indexes one stripe of rows, splitting it in half until the
+     * stripes are small enough to scan directly. Since stripes never share
+     * rows, they can safely redraw their borders in the same array.
+     */
+    private static class StripeTask extends RecursiveTask<MapIndex> {
+	// TASKS ARE NEVER SERIALIZED, BUT RecursiveTask IS Serializable
+	private static final long serialVersionUID = 1L;
+
+	private int[] argbs;
+	private int width;
+	private int startRow;
+	private int endRow;
+	private HashMap<Integer, String> argbToSubRegion;
+
+	StripeTask(int[] initArgbs, int initWidth, int initStartRow, int initEndRow, HashMap<Integer, String> initArgbToSubRegion) {
+	    argbs = initArgbs;
+	    width = initWidth;
+	    startRow = initStartRow;
+	    endRow = initEndRow;
+	    argbToSubRegion = initArgbToSubRegion;
+	}
+
+	@Override
+	protected MapIndex compute() {
+	    if ((endRow - startRow) <= STRIPE_ROWS) {
+		return preprocessRows(argbs, width, startRow, endRow, argbToSubRegion);
+	    }
+	    int midRow = (startRow + endRow) / 2;
+	    StripeTask top = new StripeTask(argbs, width, startRow, midRow, argbToSubRegion);
+	    StripeTask bottom = new StripeTask(argbs, width, midRow, endRow, argbToSubRegion);
+	    bottom.fork();
+	    MapIndex topIndex = top.compute();
+	    MapIndex bottomIndex = bottom.join();
+	    return merge(topIndex, bottomIndex);
+	}
+    }
+
+    // HELPER METHOD FOR APPENDING THE SPANS OF A LOWER STRIPE TO THOSE OF
+    // THE STRIPE ABOVE IT, WHICH KEEPS EVERYTHING IN ROW ORDER
+    private static MapIndex merge(MapIndex top, MapIndex bottom) {
+	top.getBorderSpans().addAll(bottom.getBorderSpans());
+	HashMap<String, SubRegionSpans> topSpans = top.getSubRegionSpans();
+	for (Map.Entry<String, SubRegionSpans> entry : bottom.getSubRegionSpans().entrySet()) {
+	    SubRegionSpans spans = topSpans.get(entry.getKey());
+	    if (spans == null) {
+		topSpans.put(entry.getKey(), entry.getValue());
+	    } else {
+		spans.addAll(entry.getValue());
+	    }
+	}
+	return top;
+    }
+
+    // HELPER METHOD FOR COLORING ALL THE PIXELS IN SOME SPANS
+    private static void fillSpans(int[] argbs, int width, SubRegionSpans spans, int argb) {
+	for (int i = 0; i < spans.getNumSpans(); i++) {
+	    int rowStart = spans.getRow(i) * width;
+	    for (int x = rowStart + spans.getStartX(i); x < rowStart + spans.getEndX(i); x++) {
+		argbs[x] = argb;
+	    }
+	}
+    }
+}
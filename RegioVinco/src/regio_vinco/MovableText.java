@@ -1,103 +1,71 @@
 package regio_vinco;
 
-import javafx.scene.control.Label;
 import javafx.scene.image.Image;
-import javafx.scene.text.Text;
+import javafx.scene.paint.Color;
 import world_data.Region;
 
 /**
- * This class represents a game text node that can be moved and
- * rendered and can respond to mouse interactions.
+ * This class represents an entry in the sub region stack that can be moved.
+ * Note that it has no JavaFX nodes of its own, it just knows what it says,
+ * a SubRegionStackView lends it a node while it's on screen and where it is
+ * and how it's moving are kept by a StackMotionEngine.
  */
 public class MovableText {
-    // A JAVAFX TEXT NODE IN THE SCENE GRAPH
-    protected Text text;
-    protected Label label;
+    // WHAT THIS ENTRY SAYS AND SHOWS
+    protected String text;
     protected Image image;
     protected Region region;
-    
-    // USED FOR MANAGING NODE MOVEMENT
-    protected double[] velocity = new double[2];
-    protected double[] acceleration = new double[2];
+    protected Color color;
 
     /**
-     * Constructor for initializing a GameNode, note that the provided
+     * Constructor for initializing a text entry, note that the provided
      * text argument should not be null.
-     * 
-     * @param initText The text managed by this object.
+     *
+     * @param initText The text shown by this entry.
+     *
+     * @param initColor The background color for this entry.
+     *
+     * @param initRegion The region this entry is for, which may be null.
      */
-    public MovableText(Text initText, Label initLabel, Region initRegion) {
+    public MovableText(String initText, Color initColor, Region initRegion) {
 	text = initText;
-        label = initLabel;
+        color = initColor;
         region = initRegion;
     }
-    
-    public MovableText(Image initImage, Label initLabel, Text initText){
-        label = initLabel;
+
+    /**
+     * Constructor for initializing a flag entry.
+     *
+     * @param initImage The flag shown by this entry.
+     *
+     * @param initColor The background color for this entry.
+     *
+     * @param initText The name of the region the flag is for.
+     */
+    public MovableText(Image initImage, Color initColor, String initText){
         image = initImage;
+        color = initColor;
         text = initText;
     }
-    
-    public MovableText(Text initText, Label initLabel){
-        text = initText;
-        label = initLabel;
-    }
     // ACCESSOR AND MUTATOR METHODS
-    
+
     public Region getRegion(){
         return region;
     }
-    
-    public Text getText() {
+
+    public String getText() {
 	return text;
     }
-    
+
     public Image getImage(){
         return image;
     }
-    
-    public Label getLabel() {
-        return label;
-    }
-    
-    public void setText(Text initText) {
-	text = initText;
-    }
-    
-    public double getVelocityX() {
-	return velocity[0];
-    }
-    
-    public double getVelocityY() {
-	return velocity[1];
-    }
-    
-    public void setVelocityX(double initVelocityX) {
-	velocity[0] = initVelocityX;
-    }
-    
-    public void setVelocityY(double initVelocityY) {
-	velocity[1] = initVelocityY;
+
+    public Color getColor() {
+        return color;
     }
 
-    /**
-     * Called each frame, this function moves the node according
-     * to its current velocity and updates the velocity according to
-     * its current acceleration, applying percentage as a weighting for how
-     * much to scale the velocity and acceleration this frame.
-     * 
-     * @param percentage The percentage of a frame this the time step
-     * that called this method represents.
-     */
-    public void update(double percentage) {
-	// UPDATE POSITION
-	double x = label.translateXProperty().doubleValue();
-	label.translateXProperty().setValue(x + (velocity[0] * percentage));
-	double y = label.translateYProperty().doubleValue();
-	label.translateYProperty().setValue(y + (velocity[1] * percentage));
-	
-	// UPDATE VELOCITY
-	velocity[0] += (acceleration[0] * percentage);
-	velocity[1] += (acceleration[1] * percentage);
+    public void setText(String initText) {
+	text = initText;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package regio_vinco;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * This class stores a map that has been fully prepared for play. It keeps the
+ * map's original pixels, with the borders already redrawn, so that every new
+ * game can start from a fresh copy of the map without reloading the image
+ * from disk.
+ *
+ * @author McKillaGorilla
+ */
+public class PreprocessedMap {
+    // THE DIMENSIONS OF THE MAP
+    private int width;
+    private int height;
+
+    // THE MAP'S PIXELS BEFORE ANY SUB REGIONS HAVE BEEN RECOLORED
+    private int[] baseArgbs;
+
+    // WHERE EVERYTHING IS ON THE MAP
+    private MapIndex index;
+    private SubRegionLabelMap labels;
+
+    // THE HASH OF THE FILES THE INDEX WAS MADE FROM IF IT STILL NEEDS TO BE
+    // SAVED TO THE SPAN CACHE, OTHERWISE null
+    private byte[] unsavedSourceHash;
+
+    /**
+     * Constructor for a preprocessed map.
+     *
+     * @param initWidth The width of the map in pixels.
+     *
+     * @param initHeight The height of the map in pixels.
+     *
+     * @param initBaseArgbs The map's pixels with borders redrawn.
+     *
+     * @param initIndex The border and sub region spans.
+     *
+     * @param initLabels The sub region id of every pixel.
+     */
+    public PreprocessedMap(int initWidth, int initHeight, int[] initBaseArgbs, MapIndex initIndex, SubRegionLabelMap initLabels) {
+	width = initWidth;
+	height = initHeight;
+	baseArgbs = initBaseArgbs;
+	index = initIndex;
+	labels = initLabels;
+    }
+
+    public int getWidth() {
+	return width;
+    }
+
+    public int getHeight() {
+	return height;
+    }
+
+    public int[] getBaseArgbs() {
+	return baseArgbs;
+    }
+
+    public MapIndex getIndex() {
+	return index;
+    }
+
+    public SubRegionLabelMap getLabels() {
+	return labels;
+    }
+
+    public byte[] getUnsavedSourceHash() {
+	return unsavedSourceHash;
+    }
+
+    public void setUnsavedSourceHash(byte[] initUnsavedSourceHash) {
+	unsavedSourceHash = initUnsavedSourceHash;
+    }
+
+    /**
+     * Makes a new image for displaying this map in its original colors.
+     *
+     * @return A new image, the pixels of which may be freely changed.
+     */
+    public WritableImage createImage() {
+	WritableImage image = new WritableImage(width, height);
+	image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), baseArgbs, 0, width);
+	return image;
+    }
+}
@@ -1,11 +1,15 @@
  package regio_vinco;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
 import javafx.application.Application;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import world_data.WorldDataManager;
-import world_io.WorldIO;
+import world_io.WorldStreamIO;
 
 /**
  * This is the Regio Vinco game application. Note that it extends the
@@ -33,9 +37,15 @@ public class RegioVinco extends Application {
     public static final String XML_PATH = "./data/xml/";
     public static final String ANTHEM_FILE_PATH = " National Anthem.mid";
     public static final String FLAGS_FILE_PATH = " Flag.png";
+
+    // FLAGS SHOWN WHEN HOVERING OVER A SUB REGION ARE SHRUNK TO FIT THIS
+    public static final int HOVER_FLAG_WIDTH = 200;
+    public static final int HOVER_FLAG_HEIGHT = 140;
     public static final String MAP_FILE_PATH = " Map.png";
+    public static final String MAP_INDEX_FILE_PATH = " Map.idx";
     public static final String XML_FILE_PATH = " Data.xml";
     public static final String SCORE_FILE_PATH = " Scores.txt";
+    public static final String SCORE_LOG_FILE_PATH = "Scores.log";
     public static final String AFG_MAP_FILE_PATH = MAPS_PATH + "GreyscaleAFG.png";
 
     // HERE ARE THE PATHS TO THE REST OF THE IMAGES WE'LL USE
@@ -189,6 +199,9 @@ public class RegioVinco extends Application {
     
     public static final String FILE_WORLD_SCHEMA = "./data/The World/RegionData.xsd";
 
+    // EVERYTHING THE GAME HAS LEARNED ABOUT THE WORLD IS SAVED HERE ON EXIT
+    public static final String WORLD_SNAPSHOT_FILE_PATH = DATA_PATH + "The World.snapshot";
+
     /**
      * This is where the RegioVinco application starts. It proceeds to make a
      * game and pass it the window, and then starts it.
@@ -201,14 +214,36 @@ public class RegioVinco extends Application {
 	WorldDataManager worldDataManager = new WorldDataManager();
 	
 	// INIT THE FILE I/O
-        // AND OUR IMPORTER/EXPORTER
+        // AND OUR IMPORTER/EXPORTER, WHICH STREAMS THE REGIONS IN
         File schemaFile = new File(FILE_WORLD_SCHEMA);
-        WorldIO worldIO = new WorldIO(schemaFile);
+        WorldStreamIO worldIO = new WorldStreamIO(schemaFile);
         worldDataManager.setWorldImporterExporter(worldIO);
+
+        // PICK UP WHERE WE LEFT OFF, UNLESS THE REGION DATA HAS CHANGED
+        // SINCE, IN WHICH CASE IT'S ALL PARSED AGAIN AS IT'S NEEDED
+        File snapshotFile = new File(WORLD_SNAPSHOT_FILE_PATH);
+        if (isSnapshotCurrent(snapshotFile) && !worldDataManager.load(snapshotFile)) {
+            System.out.println("world snapshot " + snapshotFile.getPath() + " could not be loaded");
+        }
 	RegioVincoGame game = new RegioVincoGame(primaryStage, worldDataManager);
 	game.startGame();
     }
 
+    // HELPER METHOD THAT TESTS TO SEE IF THE SNAPSHOT IS NEWER THAN ALL OF
+    // THE REGION DATA FILES
+    private static boolean isSnapshotCurrent(File snapshotFile) {
+        if (!snapshotFile.exists()) {
+            return false;
+        }
+        long snapshotTime = snapshotFile.lastModified();
+        try (Stream<Path> paths = Files.walk(new File(DATA_PATH).toPath())) {
+            return paths.noneMatch(path -> path.getFileName().toString().endsWith(XML_FILE_PATH)
+                    && (path.toFile().lastModified() > snapshotTime));
+        } catch (IOException | RuntimeException ex) {
+            return false;
+        }
+    }
+
     /**
      * The RegioVinco game application starts here. All game data and GUI
      * initialization is done through the constructor, so we will just construct
@@ -21,6 +21,9 @@ public class RegioVincoController implements KeyPressHook {
     }
     
     public void processExitGameRequest() {
+	// DON'T LOSE ANY SCORES THAT ARE STILL BEING WRITTEN
+	game.getScoreStore().close();
+	game.saveWorldSnapshot();
 	game.killApplication();
     }
     
@@ -50,20 +53,20 @@ public class RegioVincoController implements KeyPressHook {
         KeyCode keyCode = ke.getCode();
         if (keyCode == KeyCode.C)
         {
-            try
-            {    
-                game.beginUsingData();
-                RegioVincoDataModel dataModel = (RegioVincoDataModel)(game.getDataModel());
-                dataModel.removeAllButOneFromeStack(game);
-            }
-            catch(NoSuchElementException e){
-                
-            }
-            finally
-            {
-                game.updateLabels();
-                game.endUsingData();
-            }
+            game.postCommand(() -> {
+                try
+                {
+                    RegioVincoDataModel dataModel = (RegioVincoDataModel)(game.getDataModel());
+                    dataModel.removeAllButOneFromeStack(game);
+                }
+                catch(NoSuchElementException e){
+
+                }
+                finally
+                {
+                    game.updateLabels();
+                }
+            });
         }
     }   
 }
@@ -2,7 +2,6 @@ package regio_vinco;
 
 import audio_manager.AudioManager;
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -17,7 +16,6 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.scene.text.Text;
 import pacg.PointAndClickGame;
 import pacg.PointAndClickGameDataModel;
 import static regio_vinco.RegioVinco.*;
@@ -38,15 +36,23 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     private WritableImage mapImage;
     private PixelReader mapPixelReader;
     private PixelWriter mapPixelWriter;
+    private MapPixelBuffer mapPixelBuffer;
+    
+    // THE CURRENT MAP AS IT WAS LOADED, BEFORE ANY RECOLORING
+    private PreprocessedMap baseMap;
     
     // AND OTHER GAME DATA
     private String regionName;
     private String subRegionsType;
     private HashMap<Color, String> colorToSubRegionMappings;
     private HashMap<String, Color> subRegionToColorMappings;
-    private HashMap<String, ArrayList<int[]>> pixels;
+    private HashMap<String, SubRegionSpans> subRegionSpans;
+    private SubRegionLabelMap subRegionLabels;
+    private SubRegionRecolorQueue recolorQueue;
     private LinkedList<String> redSubRegions;
     private LinkedList<MovableText> subRegionStack;
+    private StackMotionEngine subRegionStackMotion;
+    private SubRegionStackView subRegionStackView;
     
     private int incorrectGuesses = 0;
     private Label timer = new Label();
@@ -64,24 +70,50 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	colorToSubRegionMappings = new HashMap();
 	subRegionToColorMappings = new HashMap();
 	subRegionStack = new LinkedList();
+	subRegionStackMotion = new StackMotionEngine();
+	subRegionStackView = new SubRegionStackView(subRegionStack, subRegionStackMotion);
 	redSubRegions = new LinkedList();
-        pixels = new HashMap();
+        subRegionSpans = new HashMap();
     }
     
     public void setMapImage(WritableImage initMapImage) {
 	mapImage = initMapImage;
 	mapPixelReader = mapImage.getPixelReader();
 	mapPixelWriter = mapImage.getPixelWriter();
+	mapPixelBuffer = new MapPixelBuffer(mapImage);
     }
     public WritableImage getMapImage(){
         return mapImage;
     }
+    
+    /**
+     * Makes map the current map, along with its spans and labels, and starts
+     * it off with a fresh image in its original colors.
+     * 
+     * @param map The newly loaded map.
+     */
+    public void setBaseMap(PreprocessedMap map) {
+        baseMap = map;
+        setSubRegionSpans(map.getIndex().getSubRegionSpans());
+        setSubRegionLabels(map.getLabels());
+        restoreBaseMapImage();
+    }
+    
+    // HELPER METHOD FOR STARTING OVER WITH A FRESH COPY OF THE CURRENT MAP,
+    // WHICH IS MUCH FASTER THAN RELOADING AND REPROCESSING THE IMAGE
+    private void restoreBaseMapImage() {
+        mapImage = baseMap.createImage();
+        mapPixelReader = mapImage.getPixelReader();
+        mapPixelWriter = mapImage.getPixelWriter();
+        mapPixelBuffer = new MapPixelBuffer(mapImage, baseMap.getBaseArgbs());
+        subRegionLabels.resetCurrentArgbs();
+        recolorQueue.clear();
+    }
 
     public void removeAllButOneFromeStack(RegioVincoGame game) {
         if(game.currentGameMode.equals("leader") || game.currentGameMode.equals("capital")){
             while (subRegionStack.size() > 1) {
-                MovableText text = subRegionStack.removeFirst();
-                ((RegioVincoGame)game).gameLayer.getChildren().remove(text.getLabel());
+                MovableText text = subRegionStackView.removeFirst();
                 String subRegionName = text.getRegion().getName();
 
                 // TURN THE TERRITORY GREEN
@@ -92,14 +124,13 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
         }
         else{
             while (subRegionStack.size() > 1) {
-                MovableText text = subRegionStack.removeFirst();
-                ((RegioVincoGame)game).gameLayer.getChildren().remove(text.getLabel());
-                String subRegionName = text.getText().getText();
+                MovableText text = subRegionStackView.removeFirst();
+                String subRegionName = text.getText();
 
                 // TURN THE TERRITORY GREEN
                 changeSubRegionColorOnMap(game, subRegionName, Color.GREEN);
             }
-            changeSubRegionColorOnMap(game, subRegionStack.getFirst().getText().getText(), getColorMappedToSubRegion(subRegionStack.getFirst().getText().getText()));
+            changeSubRegionColorOnMap(game, subRegionStack.getFirst().getText(), getColorMappedToSubRegion(subRegionStack.getFirst().getText()));
             startTextStackMovingDown();
         }
     }
@@ -129,7 +160,7 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	subRegionsType = initSubRegionsType;
     }
 
-    public String getSecondsAsTimeText(long numSeconds) {
+    public static String getSecondsAsTimeText(long numSeconds) {
 	long numHours = numSeconds / 3600;
 	numSeconds = numSeconds - (numHours * 3600);
 	long numMinutes = numSeconds / 60;
@@ -202,26 +233,25 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
         // THIS IS WHERE WE'LL CHECK TO SEE IF THE
 	// PLAYER CLICKED ON THE CORRECT SUBREGION
         boolean correctSelection = false;
-	Color pixelColor = mapPixelReader.getColor(x, y);
-	String clickedSubRegion = getColorToSubRegionMappings().get(pixelColor);
+	String clickedSubRegion = subRegionLabels.getSelectableSubRegionAt(x, y);
 //        System.out.println(clickedSubRegion);
 	if ((clickedSubRegion == null) || (subRegionStack.isEmpty())) {
 	    return;
 	}
         if(game.currentGameMode.equals("capital")){
-            if(game.getCapital(clickedSubRegion).equals(subRegionStack.get(0).getText().getText()))
+            if(game.getCapital(clickedSubRegion).equals(subRegionStack.get(0).getText()))
                 correctSelection = true;
         }
         else if(game.currentGameMode.equals("leader")){
-            if(game.getLeader(clickedSubRegion).equals(subRegionStack.get(0).getText().getText()))
+            if(game.getLeader(clickedSubRegion).equals(subRegionStack.get(0).getText()))
                 correctSelection = true;
         }
         else if(game.currentGameMode.equals("name")){
-            if(clickedSubRegion.equals(subRegionStack.get(0).getText().getText()))
+            if(clickedSubRegion.equals(subRegionStack.get(0).getText()))
                 correctSelection = true;
         }
         else{
-            if(clickedSubRegion.equals(subRegionStack.get(0).getText().getText()))
+            if(clickedSubRegion.equals(subRegionStack.get(0).getText()))
                 correctSelection = true;
         }
 	if (correctSelection) {
@@ -233,7 +263,7 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	    changeSubRegionColorOnMap(game, clickedSubRegion, Color.GREEN);
 
 	    // REMOVE THE BOTTOM ELEMENT FROM THE STACK
-	    ((RegioVincoGame)game).gameLayer.getChildren().remove(subRegionStack.removeFirst().getLabel());
+	    subRegionStackView.removeFirst();
 
 	    // AND LET'S CHANGE THE RED ONES BACK TO THEIR PROPER COLORS
 	    for (String s : redSubRegions) {
@@ -277,18 +307,26 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	}
     }
     
-    public Object[] changeMouseOverLabels(RegioVincoGame game, int x, int y){
-        Object[] arr = new Object[2];
-        Color regionOnMap = mapPixelReader.getColor(x, y);
-        String mousedOverRegion = colorToSubRegionMappings.get(regionOnMap);
-        arr[0] = regionOnMap;
-        arr[1] = game.getWorldDataManager().getRegion(mousedOverRegion);
-        return arr;
+    public Region changeMouseOverLabels(RegioVincoGame game, int x, int y){
+        String mousedOverRegion = subRegionLabels.getSelectableSubRegionAt(x, y);
+        if(mousedOverRegion == null)
+            return null;
+        return game.getWorldDataManager().getRegion(mousedOverRegion);
+    }
+    
+    public int getSubRegionIdAt(int x, int y){
+        return subRegionLabels.getSubRegionIdAt(x, y);
+    }
+    
+    public boolean isUnplayableSubRegionAt(int x, int y){
+        int id = subRegionLabels.getSubRegionIdAt(x, y);
+        if(id == SubRegionLabelMap.NO_SUB_REGION)
+            return false;
+        return subRegionLabels.getCurrentArgb(id) == makeArgb(Color.PINK);
     }
     
     public void respondToNavigationMapSelection(RegioVincoGame game, int x, int y){
-        Color regionOnMap = mapPixelReader.getColor(x, y);
-        String clickedOnSubRegion = getColorToSubRegionMappings().get(regionOnMap);
+        String clickedOnSubRegion = subRegionLabels.getSelectableSubRegionAt(x, y);
         if(clickedOnSubRegion == null)
             return;
         game.setCurrentRegion(clickedOnSubRegion);
@@ -308,17 +346,33 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 
     public void startTextStackMovingDown() {
 	// AND START THE REST MOVING DOWN
-	for (MovableText mT : subRegionStack) {
-	    mT.setVelocityY(SUB_STACK_VELOCITY);
-	}
+	subRegionStackMotion.setAllVelocityY(SUB_STACK_VELOCITY);
     }
 
     public void changeSubRegionColorOnMap(RegioVincoGame game, String subRegion, Color color) {
-        // THIS IS WHERE WE'LL CHECK TO SEE IF THE
-	// PLAYER CLICKED NO THE CORRECT SUBREGION
-	ArrayList<int[]> subRegionPixels = getPixels().get(subRegion);
-	for (int[] pixel : subRegionPixels) {
-	    mapPixelWriter.setColor(pixel[0], pixel[1], color);
+        // WE ONLY QUEUE THE COLOR CHANGE HERE, ALL THE CHANGES MADE
+	// DURING A FRAME GET DRAWN TOGETHER AT THE END OF IT
+	int id = subRegionLabels.getSubRegionId(subRegion);
+	if (id == SubRegionLabelMap.NO_SUB_REGION) {
+	    return;
+	}
+	int argb = makeArgb(color);
+	recolorQueue.queue(id, argb);
+	
+	// BUT WE REMEMBER WHAT COLOR IT IS NOW RIGHT AWAY FOR HIT TESTING
+	subRegionLabels.setCurrentArgb(id, argb);
+    }
+
+    /**
+     * Called once at the end of each frame, this draws all the sub region
+     * color changes queued up during the frame onto the map.
+     *
+     * @param game the game in progress
+     */
+    @Override
+    public void flushChanges(PointAndClickGame game) {
+	if ((recolorQueue != null) && (mapPixelBuffer != null)) {
+	    recolorQueue.flush(subRegionLabels, mapPixelBuffer);
 	}
     }
 
@@ -478,105 +532,59 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 //	getColorToSubRegionMappings().clear();
 //	subRegionToColorMappings.clear();
 	subRegionStack.clear();
+	subRegionStackMotion.reset(0);
 	redSubRegions.clear();
         incorrectGuesses = 0;
 
-        Image tempImage = game.loadImage(game.currentRegionPath + "/" + game.currentRegion + MAP_FILE_PATH);
-        if(tempImage == null)
+        if(baseMap == null)
             return;
-        PixelReader pixelReader = tempImage.getPixelReader();
-        WritableImage mapImage = new WritableImage(pixelReader, (int)tempImage.getWidth(), (int)tempImage.getHeight());
-        for(int i = 0; i < mapImage.getWidth(); i++){
-            for(int k = 0; k < mapImage.getHeight(); k++){
-                Color c = pixelReader.getColor(i,k);
-                if(c.equals(Color.rgb(220, 110, 0)))
-                    mapImage.getPixelWriter().setColor(i, k, Color.BLACK);
-            }
-        }
+        restoreBaseMapImage();
         ImageView mapView = game.getGuiImages().get(MAP_TYPE);
 	mapView.setImage(mapImage);
-        setMapImage(mapImage);
         
-	// REST THE MOVABLE TEXT
+	// REST THE MOVABLE TEXT, NOTE THAT THE STACK VIEW
+	// ONLY MAKES NODES FOR THE ENTRIES THAT ARE ON SCREEN
 	Pane gameLayer = ((RegioVincoGame)game).getGameLayer();
 	gameLayer.getChildren().clear();
+	subRegionStackView.reset(gameLayer, game.currentGameMode.equals("flag"));
 	for (Color c : getColorToSubRegionMappings().keySet()) {
 	    String subRegion = getColorToSubRegionMappings().get(c);
 	    subRegionToColorMappings.put(subRegion, c);
-            Text textNode;
-            ImageView flagView;
-            Label labelNode;
             Image flagImage;
-            MovableText subRegionText;
             if(game.currentGameMode.equals("leader")){
                 Region theRegion = game.world.getAllRegions().get(subRegion);
                 if(theRegion != null){
-                    textNode = new Text(game.getLeader(subRegion));
-                    labelNode = new Label();
-                    labelNode.setPrefSize(300,50);
-                    labelNode.setGraphic(textNode);
-                    labelNode.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
-                    subRegionText = new MovableText(textNode, labelNode, theRegion);
-                    subRegionText.getText().setFill(Color.NAVY);
-                    textNode.setFont(Font.font("Verdana", 23));
-                    labelNode.setLayoutX(STACK_X);
-                    gameLayer.getChildren().add(labelNode);
-                    subRegionStack.add(subRegionText);
+                    subRegionStack.add(new MovableText(game.getLeader(subRegion), c, theRegion));
                 }
             }
             else if(game.currentGameMode.equals("name")){
-                textNode = new Text(subRegion);
-                labelNode = new Label();
-                labelNode.setPrefSize(300,50);
-                labelNode.setGraphic(textNode);
-                labelNode.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
-                subRegionText = new MovableText(textNode, labelNode);
-                subRegionText.getText().setFill(Color.NAVY);
-                textNode.setFont(Font.font("Verdana", 23));
+                subRegionStack.add(new MovableText(subRegion, c, null));
             }
             else if(game.currentGameMode.equals("capital")){
                 Region theRegion = game.world.getAllRegions().get(subRegion);
                 if(theRegion != null){
                     if(!game.getCapital(subRegion).isEmpty()){
-                        textNode = new Text(game.getCapital(subRegion));
-                        labelNode = new Label();
-                        labelNode.setPrefSize(300,50);
-                        labelNode.setGraphic(textNode);
-                        labelNode.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
-                        subRegionText = new MovableText(textNode, labelNode, theRegion);
-                        subRegionText.getText().setFill(Color.NAVY);
-                        textNode.setFont(Font.font("Verdana", 23));
-                        labelNode.setLayoutX(STACK_X);
-                        gameLayer.getChildren().add(labelNode);
-                        subRegionStack.add(subRegionText);
+                        subRegionStack.add(new MovableText(game.getCapital(subRegion), c, theRegion));
                     }
                 }
             }
             else{
-                flagView = new ImageView();
                 flagImage = game.loadImage(game.currentRegionPath + subRegion + "/" + subRegion + FLAGS_FILE_PATH);
                 if(flagImage != null){
-                    flagView.setImage(flagImage);
-                    textNode = new Text(subRegion);
-                    labelNode = new Label();
-                    labelNode.setGraphic(flagView);
-                    labelNode.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
-                    subRegionText = new MovableText(flagImage, labelNode, textNode);
-                    labelNode.setLayoutX(STACK_X);
-                    gameLayer.getChildren().add(labelNode);
-                    subRegionStack.add(subRegionText);
+                    subRegionStack.add(new MovableText(flagImage, c, subRegion));
                 }
             }
 	}
 	Collections.shuffle(subRegionStack);
   
 	// NOW FIX THEIR Y LOCATIONS
+        subRegionStackMotion.reset(subRegionStack.size());
         if(!((RegioVincoGame)game).currentGameMode.equals("flag")){
             int y = STACK_INIT_Y;
             int yInc = STACK_INIT_Y_INC;
-            for (MovableText mT : subRegionStack) {
+            for (int i = 0; i < subRegionStack.size(); i++) {
                 int tY = y + yInc;
-                mT.getLabel().setLayoutY(tY);
+                subRegionStackMotion.setPosition(i, STACK_X, tY);
                 yInc -= 50;
             }
         }
@@ -584,14 +592,14 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
             int y = STACK_INIT_Y - 130;
             int yInc = STACK_INIT_Y_INC;
 //            int yInc = (int) subRegionStack.get(0).getImage().getHeight();
-            System.out.println(subRegionStack.get(0).getText().getText());
-            for (MovableText mT : subRegionStack) {
+            for (int i = 0; i < subRegionStack.size(); i++) {
                 int tY = y + yInc;
-                mT.getLabel().setLayoutY(tY);
-//                yInc -= mT.getImage().getHeight();
+                subRegionStackMotion.setPosition(i, STACK_X, tY);
+//                yInc -= subRegionStack.get(i).getImage().getHeight();
                 yInc -= 140;
             }
         }
+        subRegionStackView.refresh(1.0);
 
 	// RELOAD THE MAP
 	//((RegioVincoGame) game).reloadMap();
@@ -633,6 +641,20 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     public static Color makeColor(int r, int g, int b) {
 	return Color.color(r/255.0, g/255.0, b/255.0);
     }
+    
+    // HELPER METHOD FOR MAKING AN OPAQUE ARGB PIXEL
+    public static int makeArgb(int r, int g, int b) {
+	return (0xFF << 24) | (r << 16) | (g << 8) | b;
+    }
+    
+    // HELPER METHOD FOR CONVERTING A COLOR OBJECT INTO AN ARGB PIXEL
+    public static int makeArgb(Color color) {
+	int a = (int)Math.round(color.getOpacity() * 255);
+	int r = (int)Math.round(color.getRed() * 255);
+	int g = (int)Math.round(color.getGreen() * 255);
+	int b = (int)Math.round(color.getBlue() * 255);
+	return (a << 24) | (r << 16) | (g << 8) | b;
+    }
 
     // STATE TESTING METHODS
     // UPDATE METHODS
@@ -647,30 +669,18 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
      */
     @Override
     public void updateAll(PointAndClickGame game, double percentage) {
-	for (MovableText mT : subRegionStack) {
-	    mT.update(percentage);
-	}
+	subRegionStackMotion.update(percentage);
 	if (!subRegionStack.isEmpty()) {
 	    MovableText bottomOfStack = subRegionStack.get(0);
-	    double bottomY = bottomOfStack.getLabel().getLayoutY() + bottomOfStack.getLabel().getTranslateY() + 50;
+	    double bottomY = subRegionStackMotion.getY(0) + 50;
             if(!(((RegioVincoGame)game).currentGameMode.equals("flag"))){
                 if (bottomY >= FIRST_REGION_Y_IN_STACK) {
-                    double diffY = bottomY - FIRST_REGION_Y_IN_STACK;
-                    for (MovableText mT : subRegionStack) {
-                        mT.getText().setY(mT.getText().getY() - diffY);
-                        mT.setVelocityY(0);
-                    }
+                    subRegionStackMotion.stopAllAbove(bottomY - FIRST_REGION_Y_IN_STACK);
                 }
-                subRegionStack.peek().getLabel().setStyle("-fx-background-color: lime");
-                subRegionStack.peek().getText().setStyle("-fx-fill: crimson");
             }
             else{
                 if (bottomY >= 700 - bottomOfStack.getImage().getHeight()) {
-                    double diffY = bottomY - (700 - bottomOfStack.getImage().getHeight());
-                    for (MovableText mT : subRegionStack) {
-                        mT.getLabel().setLayoutY(mT.getLabel().getLayoutY() - diffY);
-                        mT.setVelocityY(0);
-                    }
+                    subRegionStackMotion.stopAllAbove(bottomY - (700 - bottomOfStack.getImage().getHeight()));
                 }
             }
 	}
@@ -678,6 +688,20 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
         timer.setText(getSecondsAsTimeText(((System.currentTimeMillis() - timeStart)) / 1000));
     }
 
+    /**
+     * Called each frame after all the frame's updates, this moves the stack's
+     * nodes to where its entries are between the last update and the next.
+     * Note that only the nodes that can be seen are moved.
+     *
+     * @param game the game in progress
+     *
+     * @param alpha How far we are between the last update and the next.
+     */
+    @Override
+    public void render(PointAndClickGame game, double alpha) {
+	subRegionStackView.refresh(alpha);
+    }
+
     /**
      * Called each frame, this method specifies what debug text to render. Note
      * that this can help with debugging because rather than use a
@@ -689,6 +713,13 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
      */
     public void updateDebugText(PointAndClickGame game) {
 	debugText.clear();
+	if (!debugTextRenderingActive) {
+	    return;
+	}
+	ImageCache imageCache = ((RegioVincoGame)game).getImageCache();
+	debugText.add("region: " + ((RegioVincoGame)game).currentRegion + ", mode: " + ((RegioVincoGame)game).currentGameMode);
+	debugText.add("sub regions left: " + subRegionStack.size() + ", incorrect guesses: " + incorrectGuesses);
+	debugText.add("image cache: " + imageCache.getHits() + " hits, " + imageCache.getMisses() + " misses, " + (imageCache.getCurrentBytes() / 1024) + " KB");
     }
 
     /**
@@ -699,100 +730,33 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     }
 
     /**
-     * @return the pixels
+     * @return the spans of pixels for each sub region
      */
-    public HashMap<String, ArrayList<int[]>> getPixels() {
-        return pixels;
+    public HashMap<String, SubRegionSpans> getSubRegionSpans() {
+        return subRegionSpans;
     }
     
     public void resetMaps(){
         colorToSubRegionMappings.clear();
         subRegionToColorMappings.clear();
         subRegionStack.clear();
+        subRegionStackMotion.reset(0);
+        subRegionStackView.clear();
         redSubRegions.clear();
     }
-    public void setPixels(HashMap<String, ArrayList<int[]>> pixels){
-        this.pixels = pixels;
+    public void setSubRegionSpans(HashMap<String, SubRegionSpans> subRegionSpans){
+        this.subRegionSpans = subRegionSpans;
     }
     
-    public boolean checkIfGameModeAvailable(String gameMode, RegioVincoGame game){
-        LinkedList<MovableText> temp = new LinkedList<MovableText>();
-        for (Color c : getColorToSubRegionMappings().keySet()) {
-	    String subRegion = getColorToSubRegionMappings().get(c);
-	    subRegionToColorMappings.put(subRegion, c);
-            Text textNode;
-            ImageView flagView;
-            Label labelNode;
-            Image flagImage;
-            MovableText subRegionText;
-            if(gameMode.equals("leader")){
-                Region theRegion = game.world.getAllRegions().get(subRegion);
-                if(theRegion != null){
-                    if(!game.getLeader(subRegion).isEmpty()){
-                        textNode = new Text(game.getLeader(subRegion));
-                        labelNode = new Label();
-                        labelNode.setPrefSize(300,50);
-                        labelNode.setGraphic(textNode);
-                        labelNode.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
-                        subRegionText = new MovableText(textNode, labelNode, theRegion);
-                        subRegionText.getText().setFill(Color.NAVY);
-                        textNode.setFont(Font.font("Verdana", 23));
-                        labelNode.setLayoutX(STACK_X);
-                        game.gameLayer.getChildren().add(labelNode);
-                        temp.add(subRegionText);
-                    }
-                }
-            }
-            else if(gameMode.equals("name")){
-                textNode = new Text(subRegion);
-                labelNode = new Label();
-                labelNode.setPrefSize(300,50);
-                labelNode.setGraphic(textNode);
-                labelNode.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
-                subRegionText = new MovableText(textNode, labelNode);
-                subRegionText.getText().setFill(Color.NAVY);
-                textNode.setFont(Font.font("Verdana", 23));
-                labelNode.setLayoutX(STACK_X);
-                game.gameLayer.getChildren().add(labelNode);
-                temp.add(subRegionText);
-            }
-            else if(gameMode.equals("capital")){
-                Region theRegion = game.world.getAllRegions().get(subRegion);
-                if(theRegion != null){
-                    if (!game.getCapital(subRegion).isEmpty()){
-                        textNode = new Text(game.getCapital(subRegion));
-                        labelNode = new Label();
-                        labelNode.setPrefSize(300,50);
-                        labelNode.setGraphic(textNode);
-                        labelNode.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
-                        subRegionText = new MovableText(textNode, labelNode, theRegion);
-                        subRegionText.getText().setFill(Color.NAVY);
-                        textNode.setFont(Font.font("Verdana", 23));
-                        labelNode.setLayoutX(STACK_X);
-                        game.gameLayer.getChildren().add(labelNode);
-                        temp.add(subRegionText);
-                    }
-                }
-            }
-            else{
-                flagView = new ImageView();
-                flagImage = game.loadImage(game.currentRegionPath + subRegion + "/" + subRegion + FLAGS_FILE_PATH);
-                if(flagImage != null){
-                    flagView.setImage(flagImage);
-                    textNode = new Text(subRegion);
-                    labelNode = new Label();
-                    labelNode.setGraphic(flagView);
-                    labelNode.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
-                    subRegionText = new MovableText(flagImage, labelNode, textNode);
-                    labelNode.setLayoutX(STACK_X);
-                    game.gameLayer.getChildren().add(labelNode);
-                    temp.add(subRegionText);
-                }
-            }
-	}
-        if(temp.isEmpty())
-            return false;
-        else
-            return true;
+    /**
+     * @return the sub region id of every pixel on the map
+     */
+    public SubRegionLabelMap getSubRegionLabels() {
+        return subRegionLabels;
+    }
+    
+    public void setSubRegionLabels(SubRegionLabelMap subRegionLabels){
+        this.subRegionLabels = subRegionLabels;
+        recolorQueue = new SubRegionRecolorQueue(subRegionLabels.getNumSubRegions());
     }
 }
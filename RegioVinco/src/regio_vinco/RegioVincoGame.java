@@ -1,24 +1,16 @@
 package regio_vinco;
 
 import audio_manager.AudioManager;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Scanner;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -42,6 +34,14 @@ public class RegioVincoGame extends PointAndClickGame {
     // THIS PROVIDES GAME AND GUI EVENT RESPONSES
     RegioVincoController controller;
     WorldDataManager world;
+    
+    // THIS LOADS ALL THE MAPS IN THE BACKGROUND
+    MapLoader mapLoader;
+    
+    // AND THIS MAKES SURE ALL THE OTHER IMAGES ARE ONLY DECODED ONCE
+    ImageCache imageCache;
+    ScoreStore scoreStore;
+    ScoreTotals scoreTotals;
 
     // THIS PROVIDES MUSIC AND SOUND EFFECTS
     AudioManager audio;
@@ -85,16 +85,28 @@ public class RegioVincoGame extends PointAndClickGame {
     
     String currentRegion;
     String currentRegionPath;
+    Image currentRegionFlag;
     String continentRegion;
     Label highestScore;
     Label fastestTime;
     Label fewestGuesses;
+    Label regionTotals;
     Label highestScoreMO;
     Label fastestTimeMO;
     Label fewestGuessesMO;
-    Scanner fileReader;
     
-    //FOR MOUSE-OVER STUFF
+    //FOR MOUSE-OVER STUFF. NOTE THAT THE MOUSE-OVER LABELS ARE ONLY CHANGED
+    //WHEN THE MOUSE MOVES ONTO A DIFFERENT SUB REGION
+    public static final int UNKNOWN_SUB_REGION = -1;
+    String hoveredRegion;
+    int hoveredSubRegionId = UNKNOWN_SUB_REGION;
+    HoverStatsCache hoverStats;
+    ImageView regionFlagView;
+    
+    //THE REGION WHOSE MAP IS ACTUALLY UP, AND THE GAME MODES IT ALLOWS, SO
+    //THEY CAN BE PUT BACK IF A NEW MAP FAILS TO LOAD
+    String shownRegion;
+    GameModeAvailability shownAvailability;
     Label regionMOLabel;
     Label regionFlagImage;
     Label capitalMode;
@@ -105,8 +117,9 @@ public class RegioVincoGame extends PointAndClickGame {
     boolean gameOn = false;
     String currentGameMode;
     
-    FileWriter fw;
-    BufferedWriter bw;
+    // SO THE WIN IS ONLY RECORDED AND SHOWN ONCE PER GAME
+    boolean winShown = false;
+    
     /**
      * Get the game setup.
      */
@@ -162,6 +175,23 @@ public class RegioVincoGame extends PointAndClickGame {
         return world;
     }
     
+    public ImageCache getImageCache(){
+        return imageCache;
+    }
+    
+    public ScoreStore getScoreStore(){
+        return scoreStore;
+    }
+    
+    /**
+     * Saves every region the game has loaded so far, so the next time it
+     * starts they can be restored without parsing any of them again.
+     */
+    public void saveWorldSnapshot(){
+        if(!world.save(new File(WORLD_SNAPSHOT_FILE_PATH)))
+            System.out.println("world snapshot could not be saved");
+    }
+    
     public Button getWorldNode(){
         return worldNode;
     }
@@ -215,6 +245,10 @@ public class RegioVincoGame extends PointAndClickGame {
 	// INIT OUR DATA MANAGER
 	data = new RegioVincoDataModel();
 	data.setGameDimensions(GAME_WIDTH, GAME_HEIGHT);
+        imageCache = new ImageCache(ImageCache.DEFAULT_MAX_BYTES);
+        scoreStore = new ScoreStore(DATA_PATH);
+        scoreTotals = new ScoreTotals(scoreStore);
+        mapLoader = new MapLoader(this);
 
 	boundaryLeft = 0;
 	boundaryRight = GAME_WIDTH;
@@ -397,6 +431,8 @@ public class RegioVincoGame extends PointAndClickGame {
         regionMOLabel.setLayoutX(900);
         regionMOLabel.setLayoutY(250);
         regionFlagImage = new Label();
+        regionFlagView = new ImageView();
+        regionFlagImage.setGraphic(regionFlagView);
         regionFlagImage.setLayoutX(900);
         regionFlagImage.setLayoutY(350);
         highestScore = new Label("Highest Score: ");
@@ -414,6 +450,11 @@ public class RegioVincoGame extends PointAndClickGame {
         fewestGuesses.setFont(new Font("Verdana", 20));
         fewestGuesses.setLayoutX(612);
         fewestGuesses.setLayoutY(605);
+        regionTotals = new Label();
+        regionTotals.setStyle("-fx-background-color: transparent;" + "-fx-text-fill: white;");
+        regionTotals.setFont(new Font("Verdana", 20));
+        regionTotals.setLayoutX(12);
+        regionTotals.setLayoutY(640);
         highestScoreMO = new Label();
         highestScoreMO.setStyle("-fx-background-color: transparent;" + "-fx-text-fill: white;");
         highestScoreMO.setFont(new Font("Verdana", 20));
@@ -432,7 +473,7 @@ public class RegioVincoGame extends PointAndClickGame {
         fewestGuessesMO.setLayoutX(900);
         fewestGuessesMO.setLayoutY(315);
         fewestGuessesMO.setVisible(false);
-        navigationLayer.getChildren().addAll(worldNode, continentNode, nationNode, regionMOLabel, regionFlagImage, highestScore, fastestTime, fewestGuesses, highestScoreMO, fastestTimeMO, fewestGuessesMO);
+        navigationLayer.getChildren().addAll(worldNode, continentNode, nationNode, regionMOLabel, regionFlagImage, highestScore, fastestTime, fewestGuesses, regionTotals, highestScoreMO, fastestTimeMO, fewestGuessesMO);
         
         splashLayer = new Pane();
 	addStackPaneLayer(splashLayer);
@@ -540,15 +581,10 @@ public class RegioVincoGame extends PointAndClickGame {
         winLayer.setVisible(false);
     }
     
-    // HELPER METHOD FOR LOADING IMAGES
+    // HELPER METHOD FOR LOADING IMAGES, EACH ONE IS ONLY DECODED ONCE. NOTE
+    // THAT MAPS DON'T GO THROUGH HERE SINCE THEY'RE ONLY EVER USED ONCE
     public Image loadImage(String imagePath) {	
-        File file = new File(imagePath);
-        if(!file.exists()){
-//            System.out.println("no img");
-            return null;
-        }
-	Image img = new Image("file:" + imagePath);
-	return img;
+	return imageCache.getImage(imagePath);
     }
 
     /**
@@ -742,21 +778,23 @@ public class RegioVincoGame extends PointAndClickGame {
 	// SETUP MOUSE PRESSES ON THE MAP
 	ImageView mapView = getGuiImages().get(MAP_TYPE);
 	mapView.setOnMouseClicked(e -> {
-            dataLock = new ReentrantLock();
-            dataLock.lock();
-            try{
-                if(!gameOn)
-                    ((RegioVincoDataModel)data).respondToNavigationMapSelection(this, (int)e.getX(), (int)e.getY());
-                else{
-                    controller.processMapClickRequest((int) e.getX(), (int) e.getY());
-                    updateLabels();
+            int x = (int)e.getX();
+            int y = (int)e.getY();
+            postCommand(() -> {
+                // THE MAP ON SCREEN MAY BE ABOUT TO BE REPLACED
+                if(mapLoader.isLoading())
+                    return;
+                try{
+                    if(!gameOn)
+                        ((RegioVincoDataModel)data).respondToNavigationMapSelection(this, x, y);
+                    else{
+                        controller.processMapClickRequest(x, y);
+                        updateLabels();
+                    }
                 }
-            }
-            catch(Exception ex){
-            }
-            finally{
-                dataLock.unlock();
-            }
+                catch(Exception ex){
+                }
+            });
 	});
         
         //CAPITAL BUTTON ON NAVIGATION SCREEN
@@ -857,6 +895,7 @@ public class RegioVincoGame extends PointAndClickGame {
                 highestScore.setVisible(true);
                 fastestTime.setVisible(true);
                 fewestGuesses.setVisible(true);
+                regionTotals.setVisible(true);
                 nameMode.setDisable(false);
                 leaderMode.setDisable(false);
                 capitalMode.setDisable(false);
@@ -898,31 +937,42 @@ public class RegioVincoGame extends PointAndClickGame {
             worldNode.fire();
             ((RegioVincoDataModel)data).resetMaps();
             setCurrentRegion(temp);
-            this.reloadMap(temp);
-            if(this.getWorldDataManager().getAllRegions().get(temp).getType() == RegionType.CONTINENT){
-                this.getContinentNode().setText(temp);
-                this.getContinentNode().setVisible(true);
-            }
-            else if(this.getWorldDataManager().getAllRegions().get(temp).getType() == RegionType.NATION){
-                this.getNationNode().setText(temp);
-                this.getNationNode().setVisible(true);
-            }
+            
+            // THE REGION ISN'T BACK IN THE WORLD UNTIL ITS MAP HAS LOADED
+            this.reloadMap(temp, () -> {
+                if(this.getWorldDataManager().getAllRegions().get(temp).getType() == RegionType.CONTINENT){
+                    this.getContinentNode().setText(temp);
+                    this.getContinentNode().setVisible(true);
+                }
+                else if(this.getWorldDataManager().getAllRegions().get(temp).getType() == RegionType.NATION){
+                    this.getNationNode().setText(temp);
+                    this.getNationNode().setVisible(true);
+                }
+            });
 //            continentRegion = null;
         });
         
         //MOUSE OVER REGIONS
         ImageView mapImages = getGuiImages().get(MAP_TYPE);
         mapImages.setOnMouseMoved(e -> {
-            if(!gameOn){
+            if(!gameOn && !mapLoader.isLoading()){
+                // NOTHING CHANGES UNTIL THE MOUSE IS OVER SOMETHING ELSE
+                int subRegionId = ((RegioVincoDataModel)data).getSubRegionIdAt((int)e.getX(), (int)e.getY());
+                if(subRegionId == hoveredSubRegionId)
+                    return;
+                hoveredSubRegionId = subRegionId;
                 boolean isValidRegion;
-                Object[] arr = ((RegioVincoDataModel)data).changeMouseOverLabels(this, (int)e.getX(), (int)e.getY());
-                Region theRegion = (Region)arr[1];
-                Color theColor = (Color)arr[0];
+                Region theRegion = ((RegioVincoDataModel)data).changeMouseOverLabels(this, (int)e.getX(), (int)e.getY());
                 if(theRegion == null)
                     isValidRegion = false;
                 else
                     isValidRegion = true;
                 if(isValidRegion){
+                    // THE USER MAY BE ABOUT TO CLICK ON IT
+                    if(!theRegion.getName().equals(hoveredRegion)){
+                        hoveredRegion = theRegion.getName();
+                        prefetchMap(hoveredRegion);
+                    }
         //          regionMOLabel.setVisible(true);
                     regionMOLabel.setText(theRegion.getName());
                     highestScoreMO.setVisible(true);
@@ -931,21 +981,21 @@ public class RegioVincoGame extends PointAndClickGame {
                     highestScoreMO.setText("Highest Score: ");
                     fastestTimeMO.setText("Fastest Time: ");
                     fewestGuessesMO.setText("Fewest Guesses: ");
-                    File scoresFile = new File(currentRegionPath + "/" + theRegion.getName() + "/" + theRegion.getName() + " Scores.txt");
-                    try {
-                        fileReader = new Scanner(scoresFile);
-                        highestScoreMO.setText("Highest Score: " + fileReader.next());
-                        fastestTimeMO.setText("Fastest Time: " + fileReader.next());
-                        fewestGuessesMO.setText("Fewest Guesses: " + fileReader.next());
-                    } catch (FileNotFoundException ex) {
-//                        System.out.println("No file found.");
+                    RegionScores hoveredScores = (hoverStats == null) ? null : hoverStats.getScores(theRegion.getName());
+                    if(hoveredScores != null){
+                        highestScoreMO.setText("Highest Score: " + hoveredScores.getHighestScore());
+                        fastestTimeMO.setText("Fastest Time: " + hoveredScores.getFastestTime());
+                        fewestGuessesMO.setText("Fewest Guesses: " + hoveredScores.getFewestGuesses());
                     }
-                    if(theRegion.getType() == RegionType.NATION){
-                        regionFlagImage.setGraphic(new ImageView(loadImage("./data/The World/" + theRegion.getParentRegion().getName() + "/" + theRegion.getName() + "/" + theRegion.getName() + FLAGS_FILE_PATH)));
+                    Image hoveredFlag = (hoverStats == null) ? null : hoverStats.getFlag(theRegion.getName());
+                    if(hoveredFlag != null){
+                        regionFlagView.setImage(hoveredFlag);
                         regionFlagImage.setVisible(true);
                     }
+                    else
+                        regionFlagImage.setVisible(false);
                 }
-                else if(theColor.equals(Color.PINK)){
+                else if(((RegioVincoDataModel)data).isUnplayableSubRegionAt((int)e.getX(), (int)e.getY())){
                     regionFlagImage.setVisible(false);
                     regionMOLabel.setText("Region Not Playable");
                 }
@@ -1001,31 +1051,20 @@ public class RegioVincoGame extends PointAndClickGame {
 
     @Override
     public void updateGUI() {
-	// IF THE GAME IS OVER, DISPLAY THE APPROPRIATE RESPONSE
-	if (data.won()) {
+	// IF THE GAME IS OVER, DISPLAY THE APPROPRIATE RESPONSE, BUT ONLY ON THE
+	// FRAME IT'S WON, SINCE NOTHING ON THE WIN SCREEN CHANGES AFTER THAT
+	if (!data.won()) {
+            winShown = false;
+        }
+	else if (!winShown) {
+            winShown = true;
             int scorePrint = 10000;
             scorePrint -= ((RegioVincoDataModel)data).getGameDurationSeconds();
             scorePrint -= ((RegioVincoDataModel)data).getNumIncorrectGuesses()*100;
             if(scorePrint < 0)
                 scorePrint = 0;
-            File scoreFile = new File(currentRegionPath + currentRegion + SCORE_FILE_PATH);
-            try {
-                fileReader = new Scanner(scoreFile);
-            } catch (FileNotFoundException ex) {
-                System.out.println("The file doesn't exist?!");
-            }
-            if(scorePrint > Integer.parseInt(fileReader.next())){
-                try {
-                    scoreFile.createNewFile();
-                    fw = new FileWriter(scoreFile.getAbsoluteFile());
-                    bw = new BufferedWriter(fw);
-                    String scoresToAdd = scorePrint + " " + ((RegioVincoDataModel)data).getGameDurationString() + " " + ((RegioVincoDataModel)data).getNumIncorrectGuesses();
-                    bw.write(scoresToAdd);
-                    bw.close();
-//                    System.out.println("finished writing.");
-                } catch (IOException ex) {
-                }
-            }
+            scoreStore.recordWin(currentRegionPath, scorePrint, ((RegioVincoDataModel)data).getGameDurationSeconds(), ((RegioVincoDataModel)data).getNumIncorrectGuesses());
+            scoreTotals.update(world.getAllRegions().get(currentRegion));
             regionsFound.setVisible(false);
             regionsLeft.setVisible(false);
             incorrectGuesses.setVisible(false);
@@ -1038,7 +1077,7 @@ public class RegioVincoGame extends PointAndClickGame {
             winScreenIncorrectGuesses.setText(INCORRECT_GUESSES + ((RegioVincoDataModel)data).getNumIncorrectGuesses());
             congrats.setText(WIN_SCREEN_CONGRATS + currentRegion + "!");
             try{
-                winFlag.setImage(loadImage(currentRegionPath + currentRegion + FLAGS_FILE_PATH));
+                winFlag.setImage(currentRegionFlag);
             }catch(Exception ex){
             }
             winLayer.setVisible(true);
@@ -1046,8 +1085,39 @@ public class RegioVincoGame extends PointAndClickGame {
     }
 
     public void reloadMap(String regionName) {
+        reloadMap(regionName, null);
+    }
+    
+    /**
+     * Loads the map for regionName in the background. Until it's ready the
+     * current map stays up, but doesn't respond to the user, and the game
+     * modes can't be picked.
+     * 
+     * @param regionName The region whose map should be loaded.
+     * 
+     * @param onLoaded Run once the map is up, may be null.
+     */
+    public void reloadMap(String regionName, Runnable onLoaded) {
+        getGuiButtons().get(CAPITAL_TYPE).setDisable(true);
+        getGuiButtons().get(FLAG_TYPE).setDisable(true);
+        getGuiButtons().get(LEADER_TYPE).setDisable(true);
+        getGuiButtons().get(NAME_TYPE).setDisable(true);
+        mapLoader.load(regionName, getMapPath(regionName), onLoaded);
+    }
+    
+    /**
+     * Starts loading the map for regionName in the background, since the
+     * user seems about to pick it.
+     * 
+     * @param regionName The region whose map should be prefetched.
+     */
+    public void prefetchMap(String regionName) {
+        mapLoader.prefetch(regionName, getMapPath(regionName));
+    }
+    
+    // HELPER METHOD FOR FINDING THE DIRECTORY A REGION'S FILES ARE IN
+    private String getMapPath(String regionName) {
         String path;
-        File scores;
         if(!gameOn){
             if(regionName.equals("The World"))
                 path = DATA_PATH + "The World/";
@@ -1064,45 +1134,29 @@ public class RegioVincoGame extends PointAndClickGame {
             else
                 path = DATA_PATH + "The World/" + continentRegion + "/" + regionName + "/";
         }
-        scores = new File(path + regionName + SCORE_FILE_PATH);
-        if(!scores.exists()){
-            try{
-                scores.createNewFile();
-                fw = new FileWriter(scores.getAbsoluteFile());
-                bw = new BufferedWriter(fw);
-                bw.write("0 0 0");
-                bw.close();
-                System.out.println("Done.");
-            }catch(IOException ex){
-                System.out.println("File already exists.");
-            }
-        }
-        try {
-            fileReader = new Scanner(scores);
-        } catch (FileNotFoundException ex) {
-            System.out.println("file doesn't exist");
-        }
+        return path;
+    }
+    
+    /**
+     * Shows a map that is still being loaded, as is, so the user can see
+     * something is happening.
+     * 
+     * @param previewImage The map's image, straight from its file.
+     */
+    public void showMapPreview(Image previewImage) {
+        getGuiImages().get(MAP_TYPE).setImage(previewImage);
+    }
+    
+    /**
+     * Called by the map loader once a map has been fully loaded in the
+     * background, this puts it up and updates everything that depends on it.
+     * 
+     * @param loaded Everything loaded for the map.
+     */
+    public void applyLoadedMap(LoadedMap loaded) {
+        String regionName = loaded.getRegionName();
+        String path = loaded.getPath();
         System.out.println(path);
-	Image tempMapImage = loadImage(path + regionName + MAP_FILE_PATH);
-	PixelReader pixelReader = tempMapImage.getPixelReader();
-	WritableImage mapImage = new WritableImage(pixelReader, (int) tempMapImage.getWidth(), (int) tempMapImage.getHeight());
-        for(int i = 0; i < mapImage.getWidth(); i++){
-            for(int k = 0; k < mapImage.getHeight(); k++){
-                Color c = pixelReader.getColor(i,k);
-                if(c.equals(Color.rgb(220, 110, 0)))
-                    mapImage.getPixelWriter().setColor(i, k, Color.BLACK);
-            }
-        }
-        
-	ImageView mapView = getGuiImages().get(MAP_TYPE);
-	mapView.setImage(mapImage);
-	int numSubRegions = ((RegioVincoDataModel) data).getRegionsFound() + ((RegioVincoDataModel) data).getRegionsNotFound();
-	this.boundaryTop = -(numSubRegions * 50);
-        
-	// AND GIVE THE WRITABLE MAP TO THE DATA MODEL
-	((RegioVincoDataModel) data).setMapImage(mapImage);
-        File file = new File(path + regionName + XML_FILE_PATH);
-        world.load(file);
 //        Iterator<String> it = world.getAllRegions().keySet().iterator();
 //        int numParents = 0;
 //        Region regionCursor = world.getAllRegions().get(regionName);
@@ -1119,28 +1173,24 @@ public class RegioVincoGame extends PointAndClickGame {
 //                ((RegioVincoDataModel)data).getPixels().put(subRegionName, new ArrayList());
 //            }
 //        }
-        for(Region r : (world.getAllRegions().get(regionName)).getSubRegionsAL()){
+        PreprocessedMap map = loaded.getMap();
+        if(map == null){
+            mapLoadFailed(regionName);
+            return;
+        }
+
+        // THE COLOR MAPPINGS ONLY EVER BELONG TO THE MAP ON SCREEN
+        ((RegioVincoDataModel)data).getColorToSubRegionMappings().clear();
+        for(Region r : loaded.getSubRegions()){
             ((RegioVincoDataModel)data).getColorToSubRegionMappings().put(makeColor(r.getRed(), r.getGreen(), r.getBlue()), r.getName());
-            ((RegioVincoDataModel)data).getPixels().put(r.getName(), new ArrayList());
         }
-        for (int i = 0; i < mapImage.getWidth(); i++) {
-	    for (int j = 0; j < mapImage.getHeight(); j++) {
-		Color c = pixelReader.getColor(i, j);
-		if (((RegioVincoDataModel)data).getColorToSubRegionMappings().containsKey(c)) {
-		    String subRegion = ((RegioVincoDataModel)data).getColorToSubRegionMappings().get(c);
-		    ArrayList<int[]> subRegionPixels = ((RegioVincoDataModel)data).getPixels().get(subRegion);
-		    int[] pixel = new int[2];
-		    pixel[0] = i;
-		    pixel[1] = j;
-		    subRegionPixels.add(pixel);
-                    
-//                    File xmlFile = new File(path + subRegion + "/" + subRegion+ XML_FILE_PATH);
-//                    if(!xmlFile.exists()){
-//                        mapImage.getPixelWriter().setColor(i,j, Color.PINK);
-//                    }
-		}
-	    }
-	}
+        
+	// AND GIVE THE MAP TO THE DATA MODEL
+        ((RegioVincoDataModel)data).setBaseMap(map);
+	ImageView mapView = getGuiImages().get(MAP_TYPE);
+	mapView.setImage(((RegioVincoDataModel)data).getMapImage());
+	int numSubRegions = ((RegioVincoDataModel) data).getRegionsFound() + ((RegioVincoDataModel) data).getRegionsNotFound();
+	this.boundaryTop = -(numSubRegions * 50);
 //        Region subRegion = world.getAllRegions().get(regionName);
 //        int numColored = 0;
 //        Iterator<String> it2 = world.getAllRegions().keySet().iterator();
@@ -1157,74 +1207,64 @@ public class RegioVincoGame extends PointAndClickGame {
 //                }
 //            }
 //        }
-        for(Region r : (world.getAllRegions().get(regionName)).getSubRegionsAL()){
-            File xmlFile = new File(path + r.getName() + "/" + r.getName() + XML_FILE_PATH);
-            if(!xmlFile.exists()){
-                System.out.println(r.getName());
-                ((RegioVincoDataModel)data).changeSubRegionColorOnMap(this, r.getName(), Color.PINK);
-            }
+        for(String unplayableSubRegion : loaded.getUnplayableSubRegions()){
+            System.out.println(unplayableSubRegion);
+            ((RegioVincoDataModel)data).changeSubRegionColorOnMap(this, unplayableSubRegion, Color.PINK);
         }
         regionTitle.setText(regionName);
         changeAncestorButton(regionName);
         ((RegioVincoDataModel)data).getMapImage();
         currentRegionPath = path;
-        if(world.getAllRegions().get(currentRegion).getType() == RegionType.WORLD){
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("capital", this))
-                getGuiButtons().get(CAPITAL_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(CAPITAL_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("flag", this))
-                getGuiButtons().get(FLAG_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(FLAG_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("leader", this))
-                getGuiButtons().get(LEADER_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(LEADER_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("name", this))
-                getGuiButtons().get(NAME_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(NAME_TYPE).setDisable(true);
+        currentRegionFlag = loaded.getFlagImage();
+        hoveredRegion = null;
+        hoveredSubRegionId = UNKNOWN_SUB_REGION;
+        hoverStats = loaded.getHoverStats();
+        shownRegion = regionName;
+        shownAvailability = loaded.getGameModeAvailability();
+        enableGameModes();
+        if(loaded.getScores() != null){
+            highestScore.setText("Highest Score: " + loaded.getScores().getHighestScore());
+            fastestTime.setText("Fastest Time: " + loaded.getScores().getFastestTime());
+            fewestGuesses.setText("Fewest Guesses: " + loaded.getScores().getFewestGuesses());
         }
-        else if(world.getAllRegions().get(currentRegion).getType() == RegionType.CONTINENT){
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("capital", this))
-                getGuiButtons().get(CAPITAL_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(CAPITAL_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("flag", this))
-                getGuiButtons().get(FLAG_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(FLAG_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("leader", this))
-                getGuiButtons().get(LEADER_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(LEADER_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("name", this))
-                getGuiButtons().get(NAME_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(NAME_TYPE).setDisable(true);
+        ScoreTotals.Totals totals = scoreTotals.getTotals(world.getAllRegions().get(regionName));
+        regionTotals.setText("All of " + regionName + ": " + totals.getNumWon() + " Won, "
+                + "Total Score: " + totals.getTotalScore() + ", "
+                + "Total Time: " + totals.getTotalTime() + ", "
+                + "Total Guesses: " + totals.getTotalGuesses());
+    }
+    
+    /**
+     * Called when the map for regionName couldn't be loaded. The map that
+     * was up before stays up, so everything is put back the way it was for
+     * it. If there was no map up, the user is told what happened instead.
+     * 
+     * @param regionName The region whose map failed to load.
+     */
+    public void mapLoadFailed(String regionName) {
+        System.out.println("map for " + regionName + " could not be loaded");
+        if(shownRegion == null){
+            regionTitle.setText("Could not load " + regionName);
+            return;
         }
-        else if(world.getAllRegions().get(currentRegion).getType() == RegionType.NATION){
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("capital", this))
-                getGuiButtons().get(CAPITAL_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(CAPITAL_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("flag", this))
-                getGuiButtons().get(FLAG_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(FLAG_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("leader", this))
-                getGuiButtons().get(LEADER_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(LEADER_TYPE).setDisable(true);
-            if(((RegioVincoDataModel)data).checkIfGameModeAvailable("name", this))
-                getGuiButtons().get(NAME_TYPE).setDisable(false);
-            else
-                getGuiButtons().get(NAME_TYPE).setDisable(true);
+        setCurrentRegion(shownRegion);
+        regionTitle.setText(shownRegion);
+        getGuiImages().get(MAP_TYPE).setImage(((RegioVincoDataModel)data).getMapImage());
+        enableGameModes();
+    }
+    
+    // HELPER METHOD THAT ENABLES WHICHEVER GAME MODES THE MAP THAT'S UP ALLOWS
+    private void enableGameModes() {
+        Region current = world.getAllRegions().get(currentRegion);
+        if(current == null)
+            return;
+        RegionType currentRegionType = current.getType();
+        if(currentRegionType == RegionType.WORLD || currentRegionType == RegionType.CONTINENT || currentRegionType == RegionType.NATION){
+            getGuiButtons().get(CAPITAL_TYPE).setDisable(!shownAvailability.isAvailable(GameModeAvailability.CAPITAL_MODE));
+            getGuiButtons().get(FLAG_TYPE).setDisable(!shownAvailability.isAvailable(GameModeAvailability.FLAG_MODE));
+            getGuiButtons().get(LEADER_TYPE).setDisable(!shownAvailability.isAvailable(GameModeAvailability.LEADER_MODE));
+            getGuiButtons().get(NAME_TYPE).setDisable(!shownAvailability.isAvailable(GameModeAvailability.NAME_MODE));
         }
-        highestScore.setText("Highest Score: " + fileReader.next());
-        fastestTime.setText("Fastest Time: " + fileReader.next());
-        fewestGuesses.setText("Fewest Guesses: " + fileReader.next());
     }
     
     public void updateLabels(){
@@ -1289,6 +1329,7 @@ public class RegioVincoGame extends PointAndClickGame {
         highestScore.setVisible(false);
         fastestTime.setVisible(false);
         fewestGuesses.setVisible(false);
+        regionTotals.setVisible(false);
         getGuiButtons().get(CAPITAL_TYPE).setDisable(true);
         getGuiButtons().get(LEADER_TYPE).setDisable(true);
         getGuiButtons().get(FLAG_TYPE).setDisable(true);
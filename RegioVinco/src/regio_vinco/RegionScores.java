@@ -0,0 +1,54 @@
+package regio_vinco;
+
+/**
+ * This class holds the best results for a region, which are its highest
+ * score, its fastest time and its fewest incorrect guesses. Note that each
+ * may be from a different game. These are never changed, a better game just
+ * makes new ones.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionScores {
+    // THE RESULTS FOR A REGION THAT'S NEVER BEEN WON
+    public static final RegionScores NO_SCORES = new RegionScores(0, 0, 0);
+
+    private int highestScore;
+    private long fastestSeconds;
+    private int fewestGuesses;
+
+    /**
+     * Constructor for a region's best results.
+     *
+     * @param initHighestScore The highest score.
+     *
+     * @param initFastestSeconds The fastest time, in seconds.
+     *
+     * @param initFewestGuesses The fewest incorrect guesses.
+     */
+    public RegionScores(int initHighestScore, long initFastestSeconds, int initFewestGuesses) {
+	highestScore = initHighestScore;
+	fastestSeconds = initFastestSeconds;
+	fewestGuesses = initFewestGuesses;
+    }
+
+    // ACCESSOR METHODS
+
+    public int getHighestScore() {
+	return highestScore;
+    }
+
+    public long getFastestSeconds() {
+	return fastestSeconds;
+    }
+
+    /**
+     * @return The fastest time, as it's shown on the win screen.
+     */
+    public String getFastestTime() {
+	return RegioVincoDataModel.getSecondsAsTimeText(fastestSeconds);
+    }
+
+    public int getFewestGuesses() {
+	return fewestGuesses;
+    }
+}
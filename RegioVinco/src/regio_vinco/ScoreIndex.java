@@ -0,0 +1,126 @@
+package regio_vinco;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * This class keeps the best results of every region, so they can be had
+ * without going through the score log. There are two kinds. A region's own
+ * bests are from games of that region, while its bests within are from games
+ * of that region or any region inside it, so the world's bests within are the
+ * best results there are. Both are kept up to date as each record is added,
+ * which only touches the record's region and its ancestors, and so either can
+ * be looked up in constant time.
+ *
+ * Regions are looked up by name, since every region's name is unique.
+ *
+ * @author McKillaGorilla
+ */
+public class ScoreIndex {
+    // THE RECORDS WITH THE BEST RESULTS, FROM GAMES OF EACH REGION
+    private HashMap<String, Bests> ownBests;
+
+    // THE RECORDS WITH THE BEST RESULTS, FROM GAMES OF EACH REGION OR ANY
+    // REGION INSIDE IT
+    private HashMap<String, Bests> bestsWithin;
+
+    /**
+     * Constructor for an index with no results in it yet.
+     */
+    public ScoreIndex() {
+	ownBests = new HashMap();
+	bestsWithin = new HashMap();
+    }
+
+    /**
+     * Adds a won game's results.
+     *
+     * @param record The game's results.
+     */
+    public void add(ScoreRecord record) {
+	getBests(ownBests, record.getRegionName()).add(record);
+	for (String name : record.getRegionPath().split(ScoreRecord.PATH_SEPARATOR)) {
+	    getBests(bestsWithin, name).add(record);
+	}
+    }
+
+    // HELPER METHOD FOR GETTING A REGION'S BESTS, MAKING THEM IF NEED BE
+    private static Bests getBests(HashMap<String, Bests> bests, String regionName) {
+	Bests regionBests = bests.get(regionName);
+	if (regionBests == null) {
+	    regionBests = new Bests();
+	    bests.put(regionName, regionBests);
+	}
+	return regionBests;
+    }
+
+    /**
+     * @return The best results from games of the region, or null if it's
+     * never been won.
+     */
+    public RegionScores getScores(String regionName) {
+	Bests bests = ownBests.get(regionName);
+	return (bests == null) ? null : bests.toScores();
+    }
+
+    /**
+     * @return The best results from games of the region or any region inside
+     * it, or null if none of them have ever been won.
+     */
+    public RegionScores getScoresWithin(String regionName) {
+	Bests bests = bestsWithin.get(regionName);
+	return (bests == null) ? null : bests.toScores();
+    }
+
+    /**
+     * @return The path of every region that's been won.
+     */
+    public ArrayList<String> getWonRegionPaths() {
+	ArrayList<String> regionPaths = new ArrayList();
+	for (Bests bests : ownBests.values()) {
+	    regionPaths.add(bests.highestScore.getRegionPath());
+	}
+	return regionPaths;
+    }
+
+    /**
+     * @return Every record that has one of some region's best results, which
+     * is all the records that need keeping.
+     */
+    public ArrayList<ScoreRecord> getBestRecords() {
+	LinkedHashSet<ScoreRecord> records = new LinkedHashSet();
+	for (Bests bests : ownBests.values()) {
+	    records.add(bests.highestScore);
+	    records.add(bests.fastest);
+	    records.add(bests.fewestGuesses);
+	}
+	return new ArrayList(records);
+    }
+
+    /**
+     * The records with the best results for a region. Note that each may be
+     * from a different game. Ties go to the earlier game.
+     */
+    private static class Bests {
+	ScoreRecord highestScore;
+	ScoreRecord fastest;
+	ScoreRecord fewestGuesses;
+
+	void add(ScoreRecord record) {
+	    if ((highestScore == null) || (record.getScore() > highestScore.getScore())) {
+		highestScore = record;
+	    }
+	    if ((fastest == null) || (record.getDurationSeconds() < fastest.getDurationSeconds())) {
+		fastest = record;
+	    }
+	    if ((fewestGuesses == null) || (record.getIncorrectGuesses() < fewestGuesses.getIncorrectGuesses())) {
+		fewestGuesses = record;
+	    }
+	}
+
+	RegionScores toScores() {
+	    return new RegionScores(highestScore.getScore(), fastest.getDurationSeconds(), fewestGuesses.getIncorrectGuesses());
+	}
+    }
+}
@@ -0,0 +1,261 @@
+package regio_vinco;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class is the file every won game is recorded in. Records are only ever
+ * added to the end of it, and each is forced to the disk before the next one
+ * is written, so a crash can at worst leave the last record half written.
+ * Each record carries a checksum, so when the log is opened a half written
+ * or damaged record is found, and it and anything after it is cut off,
+ * leaving every record before it as it was.
+ *
+ * Since only a region's best results matter, the log can be compacted, which
+ * rewrites it with only the records that are still someone's best. The new
+ * log is written to a temporary file first and then moved over the old one,
+ * so a crash during compaction leaves one log or the other, never a mix. A
+ * log can be made with records already in it the same way, so it either
+ * shows up with all of them or not at all.
+ *
+ * A log is a header, which is a magic number and a version, followed by the
+ * records, each of which is its length, its bytes and their CRC-32.
+ *
+ * @author McKillaGorilla
+ */
+public class ScoreLog {
+    // FOR RECOGNIZING A SCORE LOG, "RVSL"
+    public static final int MAGIC = 0x5256534C;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 8;
+
+    // NO REAL RECORD IS ANYWHERE NEAR THIS BIG, SO A LENGTH THIS BIG MEANS
+    // THE LENGTH ITSELF IS DAMAGED
+    public static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    // A RECORD'S LENGTH AND CHECKSUM
+    private static final int RECORD_OVERHEAD_BYTES = 8;
+
+    private File file;
+    private FileChannel channel;
+    private int numRecords;
+
+    private ScoreLog(File initFile) {
+	file = initFile;
+    }
+
+    // ACCESSOR METHODS
+
+    public File getFile() {
+	return file;
+    }
+
+    /**
+     * @return How many records are in the log, including ones that are no
+     * longer anyone's best.
+     */
+    public int getNumRecords() {
+	return numRecords;
+    }
+
+    /**
+     * Opens a log, making it if there isn't one yet, and reads all of its
+     * records. If the log ends with a damaged record, it's cut off there.
+     *
+     * @param file The log's file.
+     *
+     * @param records The log's records are added to this, oldest first.
+     *
+     * @return The log, ready for more records.
+     *
+     * @throws IOException If the file can't be read or written, or isn't a
+     * score log.
+     */
+    public static ScoreLog open(File file, List<ScoreRecord> records) throws IOException {
+	ScoreLog log = new ScoreLog(file);
+	long goodBytes = 0;
+	if (file.exists() && (file.length() > 0)) {
+	    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+	    if ((buffer.remaining() < HEADER_BYTES) || (buffer.getInt() != MAGIC)) {
+		throw new IOException(file.getPath() + " is not a score log");
+	    }
+	    int version = buffer.getInt();
+	    if (version != VERSION) {
+		throw new IOException(file.getPath() + " is version " + version + " of the score log format");
+	    }
+	    goodBytes = HEADER_BYTES;
+	    ScoreRecord record;
+	    while ((record = readRecord(buffer)) != null) {
+		records.add(record);
+		log.numRecords++;
+		goodBytes = buffer.position();
+	    }
+	    if (goodBytes < buffer.limit()) {
+		System.out.println("score log " + file.getPath() + " had a damaged record, "
+			+ (buffer.limit() - goodBytes) + " bytes were cut off the end");
+	    }
+	}
+
+	log.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	if (goodBytes == 0) {
+	    log.channel.truncate(0);
+	    log.write(makeHeader());
+	} else {
+	    log.channel.truncate(goodBytes);
+	    log.channel.position(goodBytes);
+	}
+	log.channel.force(false);
+	return log;
+    }
+
+    /**
+     * Makes a new log with records already in it, replacing any log that's
+     * already there. The log doesn't appear until all the records are on
+     * the disk, so a crash while it's being made leaves no log at all.
+     *
+     * @param file The log's file.
+     *
+     * @param records The records to start the log with, oldest first.
+     *
+     * @return The log, ready for more records.
+     *
+     * @throws IOException If the log can't be written.
+     */
+    public static ScoreLog create(File file, List<ScoreRecord> records) throws IOException {
+	ScoreLog log = new ScoreLog(file);
+	writeAndReplace(file, records);
+	log.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+	log.channel.position(log.channel.size());
+	log.numRecords = records.size();
+	return log;
+    }
+
+    // HELPER METHOD THAT READS THE NEXT RECORD, RETURNING null IF THERE ISN'T
+    // A WHOLE, UNDAMAGED ONE, IN WHICH CASE THE BUFFER'S POSITION IS LEFT
+    // SOMEWHERE IN THE BAD RECORD
+    private static ScoreRecord readRecord(ByteBuffer buffer) {
+	if (buffer.remaining() < RECORD_OVERHEAD_BYTES) {
+	    return null;
+	}
+	int length = buffer.getInt();
+	if ((length <= 0) || (length > MAX_RECORD_BYTES) || (buffer.remaining() < length + 4)) {
+	    return null;
+	}
+	byte[] bytes = new byte[length];
+	buffer.get(bytes);
+	CRC32 crc = new CRC32();
+	crc.update(bytes);
+	if (buffer.getInt() != (int)crc.getValue()) {
+	    return null;
+	}
+	try {
+	    return ScoreRecord.fromBytes(bytes);
+	} catch (IOException ex) {
+	    return null;
+	}
+    }
+
+    /**
+     * Adds a record to the end of the log, and doesn't return until it's on
+     * the disk.
+     *
+     * @param record The record to add.
+     *
+     * @throws IOException If the log can't be written.
+     */
+    public void append(ScoreRecord record) throws IOException {
+	write(makeRecord(record));
+	channel.force(false);
+	numRecords++;
+    }
+
+    /**
+     * Replaces everything in the log with the records.
+     *
+     * @param records The records to keep.
+     *
+     * @throws IOException If the new log can't be written, in which case the
+     * old one is still there, and still in use.
+     */
+    public void compact(List<ScoreRecord> records) throws IOException {
+	channel.close();
+	try {
+	    writeAndReplace(file, records);
+	} finally {
+	    // WHETHER OR NOT THE MOVE WORKED, CARRY ON WITH WHATEVER LOG IS THERE
+	    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+	    channel.position(channel.size());
+	}
+	numRecords = records.size();
+    }
+
+    // HELPER METHOD THAT WRITES A WHOLE LOG TO A TEMPORARY FILE AND THEN
+    // MOVES IT OVER file
+    private static void writeAndReplace(File file, List<ScoreRecord> records) throws IOException {
+	Path target = file.toPath();
+	Path temp = target.resolveSibling(file.getName() + ".tmp");
+	try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+	    writeFully(tempChannel, makeHeader());
+	    for (ScoreRecord record : records) {
+		writeFully(tempChannel, makeRecord(record));
+	    }
+	    tempChannel.force(true);
+	}
+	try {
+	    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	} catch (AtomicMoveNotSupportedException ex) {
+	    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+	}
+    }
+
+    /**
+     * Closes the log's file. Nothing more can be added to it after this.
+     */
+    public void close() {
+	try {
+	    channel.close();
+	} catch (IOException ex) {
+	}
+    }
+
+    // HELPER METHODS FOR MAKING WHAT'S WRITTEN
+
+    private static ByteBuffer makeHeader() {
+	ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+	header.putInt(MAGIC);
+	header.putInt(VERSION);
+	header.flip();
+	return header;
+    }
+
+    private static ByteBuffer makeRecord(ScoreRecord record) {
+	byte[] bytes = record.toBytes();
+	CRC32 crc = new CRC32();
+	crc.update(bytes);
+	ByteBuffer buffer = ByteBuffer.allocate(bytes.length + RECORD_OVERHEAD_BYTES);
+	buffer.putInt(bytes.length);
+	buffer.put(bytes);
+	buffer.putInt((int)crc.getValue());
+	buffer.flip();
+	return buffer;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+	writeFully(channel, buffer);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+	while (buffer.hasRemaining()) {
+	    channel.write(buffer);
+	}
+    }
+}
@@ -0,0 +1,106 @@
+package regio_vinco;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * This class is the result of one won game, as it's kept in the score log.
+ * The region is identified by its path from the world, like
+ * "The World/Europe/Spain", so that the region's ancestors can be credited
+ * with it too without having to load any of their data.
+ *
+ * @author McKillaGorilla
+ */
+public class ScoreRecord {
+    // SEPARATES THE NAMES IN A REGION'S PATH
+    public static final String PATH_SEPARATOR = "/";
+
+    private String regionPath;
+    private int score;
+    private long durationSeconds;
+    private int incorrectGuesses;
+    private long wonAt;
+
+    /**
+     * Constructor for a won game's results.
+     *
+     * @param initRegionPath The region's path from the world.
+     *
+     * @param initScore The game's score.
+     *
+     * @param initDurationSeconds How long the game took.
+     *
+     * @param initIncorrectGuesses How many incorrect guesses were made.
+     *
+     * @param initWonAt When the game was won, in milliseconds since the epoch.
+     */
+    public ScoreRecord(String initRegionPath, int initScore, long initDurationSeconds, int initIncorrectGuesses, long initWonAt) {
+	regionPath = initRegionPath;
+	score = initScore;
+	durationSeconds = initDurationSeconds;
+	incorrectGuesses = initIncorrectGuesses;
+	wonAt = initWonAt;
+    }
+
+    // ACCESSOR METHODS
+
+    public String getRegionPath() {
+	return regionPath;
+    }
+
+    public String getRegionName() {
+	return regionPath.substring(regionPath.lastIndexOf(PATH_SEPARATOR) + 1);
+    }
+
+    public int getScore() {
+	return score;
+    }
+
+    public long getDurationSeconds() {
+	return durationSeconds;
+    }
+
+    public int getIncorrectGuesses() {
+	return incorrectGuesses;
+    }
+
+    public long getWonAt() {
+	return wonAt;
+    }
+
+    /**
+     * @return This record as it's stored in the score log.
+     */
+    public byte[] toBytes() {
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	try (DataOutputStream out = new DataOutputStream(bytes)) {
+	    out.writeUTF(regionPath);
+	    out.writeInt(score);
+	    out.writeLong(durationSeconds);
+	    out.writeInt(incorrectGuesses);
+	    out.writeLong(wonAt);
+	} catch (IOException ex) {
+	    // WRITING TO MEMORY DOESN'T FAIL
+	    throw new IllegalStateException(ex);
+	}
+	return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a record as it's stored in the score log.
+     *
+     * @param bytes The stored record.
+     *
+     * @return The record.
+     *
+     * @throws IOException If bytes isn't a whole record.
+     */
+    public static ScoreRecord fromBytes(byte[] bytes) throws IOException {
+	try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+	    return new ScoreRecord(in.readUTF(), in.readInt(), in.readLong(), in.readInt(), in.readLong());
+	}
+    }
+}
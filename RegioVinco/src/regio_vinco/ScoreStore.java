@@ -0,0 +1,251 @@
+package regio_vinco;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class keeps every region's best results in memory so that the game
+ * never has to read scores while it's running. Every won game is recorded in
+ * the score log, which is read once, when the store is made, and from then on
+ * only added to, on a background thread. The results are indexed as they're
+ * read and recorded, so a region's bests, and the bests of all the regions
+ * inside it, are always at hand.
+ *
+ * Once the log has many more records than are anyone's best, it's compacted.
+ *
+ * The first time the game is run with a score log, the results in the old
+ * per region scores files are copied into it. The log is made with them
+ * already in it, so if the game stops before it's done they're just copied
+ * again the next time. The old files are left where they are, but aren't
+ * used after that.
+ *
+ * Results may be read from any thread, since maps are loaded in the
+ * background, but the log is only written on the writer thread, one record at
+ * a time and in the order the games were won.
+ *
+ * @author McKillaGorilla
+ */
+public class ScoreStore {
+    // HOW LONG WE'LL WAIT FOR WRITES TO FINISH WHEN THE GAME CLOSES
+    public static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    // THE LOG IS COMPACTED ONCE IT HAS THIS MANY TIMES AS MANY RECORDS AS IT
+    // NEEDS, BUT NEVER WHEN IT'S THIS SMALL
+    public static final int COMPACTION_FACTOR = 4;
+    public static final int MIN_RECORDS_TO_COMPACT = 64;
+
+    // WHERE THE GAME'S FILES ARE
+    private String dataPath;
+
+    // THE BEST RESULTS, WHICH ARE ONLY USED WHILE HOLDING THIS STORE'S LOCK
+    private ScoreIndex index;
+
+    // THE LOG, OR null IF IT COULDN'T BE OPENED, IN WHICH CASE RESULTS ARE
+    // ONLY KEPT UNTIL THE GAME CLOSES. IT'S ONLY USED ON THE WRITER THREAD
+    private ScoreLog log;
+
+    // ALL THE WRITING IS DONE HERE
+    private ExecutorService writer;
+
+    /**
+     * Constructor for a store with the results from the score log in
+     * dataPath, or from the old scores files there if there's no log yet.
+     *
+     * @param initDataPath The directory with the game's files.
+     */
+    public ScoreStore(String initDataPath) {
+	dataPath = initDataPath;
+	index = new ScoreIndex();
+	writer = Executors.newSingleThreadExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "Score Writer");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+
+	File logFile = new File(dataPath + SCORE_LOG_FILE_PATH);
+	ArrayList<ScoreRecord> records = new ArrayList();
+	try {
+	    if (logFile.exists()) {
+		log = ScoreLog.open(logFile, records);
+	    } else {
+		readScoresFiles(records);
+		log = ScoreLog.create(logFile, records);
+	    }
+	} catch (IOException ex) {
+	    System.out.println("score log could not be opened, scores won't be saved: " + ex);
+	}
+	for (ScoreRecord record : records) {
+	    index.add(record);
+	}
+	writer.execute(this::compactIfNeeded);
+    }
+
+    // HELPER METHOD THAT READS THE RESULTS IN EVERY OLD SCORES FILE INTO
+    // records. FILES WITH NO RESULTS IN THEM ARE SKIPPED
+    private void readScoresFiles(ArrayList<ScoreRecord> records) {
+	File dataDir = new File(dataPath);
+	try (Stream<Path> paths = Files.walk(dataDir.toPath())) {
+	    paths.filter(path -> path.getFileName().toString().endsWith(SCORE_FILE_PATH))
+		    .forEach(path -> readScoresFile(dataDir.toPath(), path, records));
+	} catch (IOException | RuntimeException ex) {
+	    System.out.println("scores could not be read from " + dataDir.getPath() + ": " + ex);
+	}
+    }
+
+    private void readScoresFile(Path dataDir, Path scoresFile, ArrayList<ScoreRecord> records) {
+	String regionPath = dataDir.relativize(scoresFile.getParent()).toString().replace(File.separator, ScoreRecord.PATH_SEPARATOR);
+	try (Scanner scanner = new Scanner(new String(Files.readAllBytes(scoresFile), StandardCharsets.UTF_8))) {
+	    int score = scanner.nextInt();
+	    long seconds = parseTimeText(scanner.next());
+	    int guesses = scanner.nextInt();
+	    if (score > 0) {
+		records.add(new ScoreRecord(regionPath, score, seconds, guesses, scoresFile.toFile().lastModified()));
+	    }
+	} catch (IOException | RuntimeException ex) {
+	    System.out.println("scores file " + scoresFile + " could not be read: " + ex);
+	}
+    }
+
+    // HELPER METHOD THAT READS A TIME AS IT'S SHOWN ON THE WIN SCREEN
+    private static long parseTimeText(String timeText) {
+	long seconds = 0;
+	for (String part : timeText.split(":")) {
+	    seconds = (seconds * 60) + Long.parseLong(part);
+	}
+	return seconds;
+    }
+
+    /**
+     * Gets the best results from games of a region.
+     *
+     * @param regionName The region to get the results for.
+     *
+     * @return The region's best results, which are all 0 if it's never been won.
+     */
+    public synchronized RegionScores getScores(String regionName) {
+	RegionScores scores = index.getScores(regionName);
+	return (scores == null) ? RegionScores.NO_SCORES : scores;
+    }
+
+    /**
+     * Gets the best results from games of a region or any region inside it.
+     *
+     * @param regionName The region to get the results for.
+     *
+     * @return The best results, which are all 0 if none of the regions have
+     * ever been won.
+     */
+    public synchronized RegionScores getScoresWithin(String regionName) {
+	RegionScores scores = index.getScoresWithin(regionName);
+	return (scores == null) ? RegionScores.NO_SCORES : scores;
+    }
+
+    /**
+     * @return The path from the world of every region that's been won, like
+     * "The World/Europe/Spain".
+     */
+    public synchronized ArrayList<String> getWonRegionPaths() {
+	return index.getWonRegionPaths();
+    }
+
+    /**
+     * Records a win. This should be called once per win.
+     *
+     * @param path The directory the won region's files are in.
+     *
+     * @param score The game's score.
+     *
+     * @param durationSeconds How long the game took.
+     *
+     * @param incorrectGuesses How many incorrect guesses were made.
+     *
+     * @return true if this win beat any of the region's best results, false
+     * otherwise.
+     */
+    public boolean recordWin(String path, int score, long durationSeconds, int incorrectGuesses) {
+	ScoreRecord record = new ScoreRecord(toRegionPath(path), score, durationSeconds, incorrectGuesses, System.currentTimeMillis());
+	boolean improved;
+	synchronized (this) {
+	    RegionScores before = index.getScores(record.getRegionName());
+	    improved = (before == null)
+		    || (score > before.getHighestScore())
+		    || (durationSeconds < before.getFastestSeconds())
+		    || (incorrectGuesses < before.getFewestGuesses());
+	    index.add(record);
+	}
+	writer.execute(() -> {
+	    append(record);
+	    compactIfNeeded();
+	});
+	return improved;
+    }
+
+    // HELPER METHOD THAT TURNS A DIRECTORY IN THE DATA DIRECTORY INTO THE PATH
+    // OF ITS REGION, SO "./data/The World/Europe/" BECOMES "The World/Europe"
+    private String toRegionPath(String path) {
+	String regionPath = path.startsWith(dataPath) ? path.substring(dataPath.length()) : path;
+	while (regionPath.endsWith(ScoreRecord.PATH_SEPARATOR)) {
+	    regionPath = regionPath.substring(0, regionPath.length() - 1);
+	}
+	return regionPath;
+    }
+
+    // THESE ARE ONLY EVER DONE ON THE WRITER THREAD
+
+    private void append(ScoreRecord record) {
+	if (log == null) {
+	    return;
+	}
+	try {
+	    log.append(record);
+	} catch (IOException ex) {
+	    System.out.println("score for " + record.getRegionPath() + " could not be saved: " + ex);
+	}
+    }
+
+    private void compactIfNeeded() {
+	if (log == null) {
+	    return;
+	}
+	ArrayList<ScoreRecord> bestRecords;
+	synchronized (this) {
+	    bestRecords = index.getBestRecords();
+	}
+	int numRecords = log.getNumRecords();
+	if ((numRecords >= MIN_RECORDS_TO_COMPACT) && (numRecords > COMPACTION_FACTOR * bestRecords.size())) {
+	    try {
+		log.compact(bestRecords);
+	    } catch (IOException ex) {
+		System.out.println("score log could not be compacted: " + ex);
+	    }
+	}
+    }
+
+    /**
+     * Finishes any writes that are still waiting, which should be done before
+     * the game exits so no results are lost.
+     */
+    public void close() {
+	writer.execute(() -> {
+	    if (log != null) {
+		log.close();
+	    }
+	});
+	writer.shutdown();
+	try {
+	    writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	} catch (InterruptedException ex) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+}
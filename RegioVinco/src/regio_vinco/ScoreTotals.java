@@ -0,0 +1,176 @@
+package regio_vinco;
+
+import java.util.HashMap;
+import world_data.Region;
+
+/**
+ * This class keeps running totals of the best results within every region,
+ * like the total of the highest scores of all the regions in Europe. Each
+ * region's totals add up its own best results and those of every region
+ * inside it, so the totals form a tree that mirrors the world's regions.
+ *
+ * The totals are kept up to date as regions are won. Since a win only changes
+ * the won region's best results, only the difference needs to be added to it
+ * and to each of its ancestors, so no other region is ever looked at.
+ *
+ * Regions come from two places, the world's region tree as the game finds
+ * out about it, and the score store's won regions, whose paths say where in
+ * the tree they go. That way the totals cover every region that's ever been
+ * won, even those in parts of the world that haven't been loaded yet.
+ *
+ * Note that like the world, this must only be used on the JavaFX application
+ * thread.
+ *
+ * @author McKillaGorilla
+ */
+public class ScoreTotals {
+    // WHERE EACH REGION'S OWN BEST RESULTS COME FROM
+    private ScoreStore scoreStore;
+
+    // EVERY REGION WE KNOW OF, BY NAME
+    private HashMap<String, Totals> allTotals;
+
+    /**
+     * Constructor for totals that start with every region that's been won.
+     *
+     * @param initScoreStore Where to get each region's best results.
+     */
+    public ScoreTotals(ScoreStore initScoreStore) {
+	scoreStore = initScoreStore;
+	allTotals = new HashMap();
+	for (String regionPath : scoreStore.getWonRegionPaths()) {
+	    Totals parent = null;
+	    for (String name : regionPath.split(ScoreRecord.PATH_SEPARATOR)) {
+		parent = getTotals(name, parent);
+	    }
+	}
+    }
+
+    /**
+     * Gets the totals within a region, adding it and its ancestors first if
+     * they're new to us.
+     *
+     * @param region A region in the world.
+     *
+     * @return The totals of the best results within the region.
+     */
+    public Totals getTotals(Region region) {
+	Totals parent = (region.getParentRegion() == null) ? null : getTotals(region.getParentRegion());
+	return getTotals(region.getName(), parent);
+    }
+
+    /**
+     * Brings the totals up to date with a region's best results. This should
+     * be called whenever the region is won.
+     *
+     * @param region The won region.
+     */
+    public void update(Region region) {
+	Totals totals = getTotals(region);
+	totals.setOwnScores(scoreStore.getScores(region.getName()));
+    }
+
+    // HELPER METHOD FOR GETTING A REGION'S TOTALS, MAKING THEM IF NEED BE.
+    // A REGION WE ONLY KNEW AS A ROOT IS HOOKED UP TO ITS PARENT ONCE WE
+    // FIND OUT WHAT THAT IS
+    private Totals getTotals(String regionName, Totals parent) {
+	Totals totals = allTotals.get(regionName);
+	if (totals == null) {
+	    totals = new Totals();
+	    allTotals.put(regionName, totals);
+	    totals.setParent(parent);
+	    totals.setOwnScores(scoreStore.getScores(regionName));
+	} else if ((totals.parent == null) && (parent != null) && !parent.isWithin(totals)) {
+	    totals.setParent(parent);
+	}
+	return totals;
+    }
+
+    /**
+     * The totals of the best results of a region and every region inside it.
+     */
+    public static class Totals {
+	private Totals parent;
+	private RegionScores ownScores = RegionScores.NO_SCORES;
+	private int numWon;
+	private long totalScore;
+	private long totalSeconds;
+	private long totalGuesses;
+
+	// ACCESSOR METHODS
+
+	/**
+	 * @return How many regions have been won.
+	 */
+	public int getNumWon() {
+	    return numWon;
+	}
+
+	/**
+	 * @return The total of the regions' highest scores.
+	 */
+	public long getTotalScore() {
+	    return totalScore;
+	}
+
+	/**
+	 * @return The total of the regions' fastest times, in seconds.
+	 */
+	public long getTotalSeconds() {
+	    return totalSeconds;
+	}
+
+	/**
+	 * @return The total of the regions' fastest times, as it's shown on
+	 * the win screen.
+	 */
+	public String getTotalTime() {
+	    return RegioVincoDataModel.getSecondsAsTimeText(totalSeconds);
+	}
+
+	/**
+	 * @return The total of the regions' fewest incorrect guesses.
+	 */
+	public long getTotalGuesses() {
+	    return totalGuesses;
+	}
+
+	// HELPER METHODS FOR KEEPING THE TOTALS UP TO DATE
+
+	private boolean isWithin(Totals ancestor) {
+	    for (Totals cursor = this; cursor != null; cursor = cursor.parent) {
+		if (cursor == ancestor) {
+		    return true;
+		}
+	    }
+	    return false;
+	}
+
+	private void setParent(Totals initParent) {
+	    parent = initParent;
+	    if (parent != null) {
+		parent.addToAll(numWon, totalScore, totalSeconds, totalGuesses);
+	    }
+	}
+
+	private void setOwnScores(RegionScores newScores) {
+	    int wonChange = ((newScores != RegionScores.NO_SCORES) ? 1 : 0)
+		    - ((ownScores != RegionScores.NO_SCORES) ? 1 : 0);
+	    long scoreChange = newScores.getHighestScore() - ownScores.getHighestScore();
+	    long secondsChange = newScores.getFastestSeconds() - ownScores.getFastestSeconds();
+	    long guessesChange = newScores.getFewestGuesses() - ownScores.getFewestGuesses();
+	    ownScores = newScores;
+	    addToAll(wonChange, scoreChange, secondsChange, guessesChange);
+	}
+
+	// ADDS TO THESE TOTALS AND THOSE OF EVERY ANCESTOR
+	private void addToAll(int wonChange, long scoreChange, long secondsChange, long guessesChange) {
+	    for (Totals cursor = this; cursor != null; cursor = cursor.parent) {
+		cursor.numWon += wonChange;
+		cursor.totalScore += scoreChange;
+		cursor.totalSeconds += secondsChange;
+		cursor.totalGuesses += guessesChange;
+	    }
+	}
+    }
+}
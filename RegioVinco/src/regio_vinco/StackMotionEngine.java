@@ -0,0 +1,166 @@
+package regio_vinco;
+
+/**
+ * This class moves the entries of the sub region stack. Rather than each entry
+ * keeping its own position and velocity, they are all kept here in arrays of
+ * doubles, indexed by where the entry is in the stack, so that a frame's worth
+ * of movement is one tight loop over the arrays. Removing the bottom entry just
+ * moves where the stack starts in the arrays, so nothing has to be copied.
+ *
+ * Each entry's position before the last update is kept too, so that when
+ * frames don't line up with updates the entries can be drawn in between.
+ *
+ * @author McKillaGorilla
+ */
+public class StackMotionEngine {
+    // WHERE THE BOTTOM OF THE STACK IS IN THE ARRAYS,
+    // AND WHERE THE TOP OF THE STACK ENDS
+    private int head;
+    private int tail;
+
+    // THE POSITIONS OF THE ENTRIES, AND HOW FAST THEY'RE FALLING, SINCE
+    // THE STACK ONLY EVER MOVES STRAIGHT DOWN
+    private double[] x;
+    private double[] y;
+    private double[] prevX;
+    private double[] prevY;
+    private double[] vy;
+
+    /**
+     * Constructor for an engine with nothing to move.
+     */
+    public StackMotionEngine() {
+	reset(0);
+    }
+
+    /**
+     * Gets ready to move numEntries entries, all at rest at (0, 0).
+     *
+     * @param numEntries The number of entries in the stack.
+     */
+    public void reset(int numEntries) {
+	// ONLY MAKE NEW ARRAYS IF THE OLD ONES AREN'T BIG ENOUGH
+	if ((x == null) || (x.length < numEntries)) {
+	    x = new double[numEntries];
+	    y = new double[numEntries];
+	    prevX = new double[numEntries];
+	    prevY = new double[numEntries];
+	    vy = new double[numEntries];
+	} else {
+	    for (int i = 0; i < numEntries; i++) {
+		x[i] = 0;
+		y[i] = 0;
+		prevX[i] = 0;
+		prevY[i] = 0;
+		vy[i] = 0;
+	    }
+	}
+	head = 0;
+	tail = numEntries;
+    }
+
+    // ACCESSOR METHODS, NOTE THAT index IS WHERE THE ENTRY IS IN THE
+    // STACK, WITH 0 BEING THE BOTTOM
+
+    public double getX(int index) {
+	return x[head + index];
+    }
+
+    public double getY(int index) {
+	return y[head + index];
+    }
+
+    /**
+     * Gets where the entry at index is to be drawn, alpha of the way from
+     * where it was before the last update to where it is now.
+     *
+     * @param index Where the entry is in the stack.
+     *
+     * @param alpha How far to go from the old position to the new one,
+     * from 0.0 to 1.0.
+     *
+     * @return The x coordinate to draw the entry at.
+     */
+    public double getInterpolatedX(int index, double alpha) {
+	int i = head + index;
+	return prevX[i] + ((x[i] - prevX[i]) * alpha);
+    }
+
+    /**
+     * Gets where the entry at index is to be drawn, alpha of the way from
+     * where it was before the last update to where it is now.
+     *
+     * @param index Where the entry is in the stack.
+     *
+     * @param alpha How far to go from the old position to the new one,
+     * from 0.0 to 1.0.
+     *
+     * @return The y coordinate to draw the entry at.
+     */
+    public double getInterpolatedY(int index, double alpha) {
+	int i = head + index;
+	return prevY[i] + ((y[i] - prevY[i]) * alpha);
+    }
+
+    // MUTATOR METHODS
+
+    public void setPosition(int index, double initX, double initY) {
+	x[head + index] = initX;
+	y[head + index] = initY;
+	prevX[head + index] = initX;
+	prevY[head + index] = initY;
+    }
+
+    /**
+     * Sets the vertical velocity of every entry in the stack.
+     *
+     * @param initVelocityY The new vertical velocity.
+     */
+    public void setAllVelocityY(double initVelocityY) {
+	for (int i = head; i < tail; i++) {
+	    vy[i] = initVelocityY;
+	}
+    }
+
+    /**
+     * Moves every entry in the stack up by diffY and stops it, which is what
+     * we do when the bottom of the stack has gone past where it should stop.
+     *
+     * @param diffY How far to move the stack up.
+     */
+    public void stopAllAbove(double diffY) {
+	for (int i = head; i < tail; i++) {
+	    y[i] -= diffY;
+	    prevY[i] -= diffY;
+	    vy[i] = 0;
+	}
+    }
+
+    /**
+     * Removes the bottom entry of the stack.
+     */
+    public void removeFirst() {
+	if (head < tail) {
+	    head++;
+	}
+    }
+
+    /**
+     * Called each frame, this moves every entry according to its velocity,
+     * applying percentage as a weighting for how much to scale the velocity
+     * this frame.
+     *
+     * @param percentage The percentage of a frame this the time step
+     * that called this method represents.
+     */
+    public void update(double percentage) {
+	for (int i = head; i < tail; i++) {
+	    // REMEMBER WHERE IT WAS
+	    prevX[i] = x[i];
+	    prevY[i] = y[i];
+
+	    // UPDATE POSITION
+	    y[i] += vy[i] * percentage;
+	}
+    }
+}
@@ -0,0 +1,190 @@
+package regio_vinco;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class provides fast lookup of which sub region is at any pixel of the
+ * map. It stores one small region id per pixel, with 0 meaning no sub region,
+ * along with a table of region names and colors indexed by that id. This way
+ * answering a mouse click or mouse move is a single array read, without
+ * building or hashing any Color objects.
+ *
+ * Note that it also keeps track of what color each sub region is currently
+ * drawn in, since a region that has been colored green, red, or pink is no
+ * longer considered selectable on the map.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionLabelMap {
+    // THIS ID IS USED FOR PIXELS THAT DON'T BELONG TO ANY SUB REGION
+    public static final int NO_SUB_REGION = 0;
+
+    // THE DIMENSIONS OF THE MAP
+    private int width;
+    private int height;
+
+    // ONE REGION ID PER PIXEL, ROW BY ROW
+    private short[] labels;
+
+    // THE REGION TABLE, INDEXED BY REGION ID
+    private String[] subRegionNames;
+    private int[] baseArgbs;
+    private int[] currentArgbs;
+    private SubRegionSpans[] subRegionSpans;
+    private HashMap<String, Integer> subRegionIds;
+
+    /**
+     * Constructor for an empty label map of the given size. Regions are
+     * added to it using addSubRegion.
+     *
+     * @param initWidth The width of the map in pixels.
+     *
+     * @param initHeight The height of the map in pixels.
+     *
+     * @param numSubRegions The number of sub regions on the map.
+     */
+    public SubRegionLabelMap(int initWidth, int initHeight, int numSubRegions) {
+	if (numSubRegions > Short.MAX_VALUE) {
+	    throw new IllegalArgumentException("Too many sub regions for a label map: " + numSubRegions);
+	}
+	width = initWidth;
+	height = initHeight;
+	labels = new short[width * height];
+	subRegionNames = new String[numSubRegions + 1];
+	baseArgbs = new int[numSubRegions + 1];
+	currentArgbs = new int[numSubRegions + 1];
+	subRegionSpans = new SubRegionSpans[numSubRegions + 1];
+	subRegionIds = new HashMap();
+    }
+
+    /**
+     * Builds the label map for a map from its sub region spans.
+     *
+     * @param spans The spans for each sub region, by name.
+     *
+     * @param argbToSubRegion Maps each sub region's ARGB color to its name.
+     *
+     * @param width The width of the map in pixels.
+     *
+     * @param height The height of the map in pixels.
+     *
+     * @return The completed label map.
+     */
+    public static SubRegionLabelMap build(HashMap<String, SubRegionSpans> spans, HashMap<Integer, String> argbToSubRegion, int width, int height) {
+	SubRegionLabelMap labelMap = new SubRegionLabelMap(width, height, argbToSubRegion.size());
+	for (Map.Entry<Integer, String> entry : argbToSubRegion.entrySet()) {
+	    SubRegionSpans subRegionSpans = spans.get(entry.getValue());
+	    if (subRegionSpans != null) {
+		labelMap.addSubRegion(entry.getValue(), entry.getKey(), subRegionSpans);
+	    }
+	}
+	return labelMap;
+    }
+
+    /**
+     * Adds a sub region to the table and labels all of its pixels.
+     *
+     * @param subRegion The name of the sub region.
+     *
+     * @param baseArgb The color the sub region has on the original map.
+     *
+     * @param spans All the pixels of the sub region.
+     *
+     * @return The id given to the sub region.
+     */
+    public int addSubRegion(String subRegion, int baseArgb, SubRegionSpans spans) {
+	int id = subRegionIds.size() + 1;
+	subRegionIds.put(subRegion, id);
+	subRegionNames[id] = subRegion;
+	baseArgbs[id] = baseArgb;
+	currentArgbs[id] = baseArgb;
+	subRegionSpans[id] = spans;
+	short label = (short)id;
+	for (int i = 0; i < spans.getNumSpans(); i++) {
+	    int rowStart = spans.getRow(i) * width;
+	    for (int x = spans.getStartX(i); x < spans.getEndX(i); x++) {
+		labels[rowStart + x] = label;
+	    }
+	}
+	return id;
+    }
+
+    // ACCESSOR METHODS
+
+    public int getWidth() {
+	return width;
+    }
+
+    public int getHeight() {
+	return height;
+    }
+
+    public int getNumSubRegions() {
+	return subRegionIds.size();
+    }
+
+    /**
+     * Gets the id of the sub region at (x, y), no matter what color it is
+     * currently drawn in.
+     *
+     * @return The region id, or NO_SUB_REGION if there is none there.
+     */
+    public int getSubRegionIdAt(int x, int y) {
+	if ((x < 0) || (y < 0) || (x >= width) || (y >= height)) {
+	    return NO_SUB_REGION;
+	}
+	return labels[(y * width) + x];
+    }
+
+    public int getSubRegionId(String subRegion) {
+	Integer id = subRegionIds.get(subRegion);
+	if (id == null) {
+	    return NO_SUB_REGION;
+	}
+	return id;
+    }
+
+    public String getSubRegionName(int id) {
+	return subRegionNames[id];
+    }
+
+    public SubRegionSpans getSubRegionSpans(int id) {
+	return subRegionSpans[id];
+    }
+
+    public int getCurrentArgb(int id) {
+	return currentArgbs[id];
+    }
+
+    /**
+     * Gets the name of the sub region at (x, y), but only if it is still
+     * drawn in its original color, which is what makes it selectable.
+     *
+     * @return The name of the selectable sub region, or null if there is none.
+     */
+    public String getSelectableSubRegionAt(int x, int y) {
+	int id = getSubRegionIdAt(x, y);
+	if ((id == NO_SUB_REGION) || (currentArgbs[id] != baseArgbs[id])) {
+	    return null;
+	}
+	return subRegionNames[id];
+    }
+
+    // MUTATOR METHODS
+
+    /**
+     * Records the color a sub region is now drawn in.
+     */
+    public void setCurrentArgb(int id, int argb) {
+	currentArgbs[id] = argb;
+    }
+
+    /**
+     * Records that every sub region is back to its original color, as when
+     * a fresh copy of the map is put on screen.
+     */
+    public void resetCurrentArgbs() {
+	System.arraycopy(baseArgbs, 0, currentArgbs, 0, baseArgbs.length);
+    }
+}
@@ -0,0 +1,81 @@
+package regio_vinco;
+
+/**
+ * This class collects all the requests to recolor sub regions that happen
+ * during a frame so they can be drawn together once at the end of it. Requests
+ * are coalesced per sub region, so if a region is colored several times in
+ * one frame, only the last color is ever drawn. That way the cost of a frame
+ * depends on how many pixels actually changed, not how many times regions
+ * were recolored.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionRecolorQueue {
+    // THE COLOR EACH PENDING REGION SHOULD END UP, INDEXED BY REGION ID
+    private int[] pendingArgbs;
+    private boolean[] pending;
+
+    // THE IDS OF ALL THE PENDING REGIONS, IN THE ORDER THEY WERE FIRST QUEUED
+    private int[] pendingIds;
+    private int numPending;
+
+    /**
+     * Constructor for an empty queue for a map with numSubRegions regions.
+     * Note that region ids start at 1.
+     *
+     * @param numSubRegions The number of sub regions on the map.
+     */
+    public SubRegionRecolorQueue(int numSubRegions) {
+	pendingArgbs = new int[numSubRegions + 1];
+	pending = new boolean[numSubRegions + 1];
+	pendingIds = new int[numSubRegions + 1];
+	numPending = 0;
+    }
+
+    public boolean isEmpty() {
+	return numPending == 0;
+    }
+
+    /**
+     * Requests that the subRegionId region be drawn in argb. If the region
+     * is already waiting to be drawn, it will simply be drawn in this color
+     * instead.
+     */
+    public void queue(int subRegionId, int argb) {
+	if (!pending[subRegionId]) {
+	    pending[subRegionId] = true;
+	    pendingIds[numPending] = subRegionId;
+	    numPending++;
+	}
+	pendingArgbs[subRegionId] = argb;
+    }
+
+    /**
+     * Draws all the pending regions into the buffer and then pushes the
+     * changed part of the buffer to the map image, leaving the queue empty.
+     *
+     * @param labels Provides the pixels of each region.
+     *
+     * @param buffer The map buffer to draw into.
+     */
+    public void flush(SubRegionLabelMap labels, MapPixelBuffer buffer) {
+	for (int i = 0; i < numPending; i++) {
+	    int id = pendingIds[i];
+	    buffer.fillSpans(labels.getSubRegionSpans(id), pendingArgbs[id]);
+	    pending[id] = false;
+	}
+	numPending = 0;
+	buffer.flush();
+    }
+
+    /**
+     * Throws away all pending requests without drawing them, as when the map
+     * they were meant for has been replaced.
+     */
+    public void clear() {
+	for (int i = 0; i < numPending; i++) {
+	    pending[pendingIds[i]] = false;
+	}
+	numPending = 0;
+    }
+}
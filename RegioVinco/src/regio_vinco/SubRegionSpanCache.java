@@ -0,0 +1,232 @@
+package regio_vinco;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class reads and writes the binary sidecar files that cache the border
+ * and sub region spans for a map, so that a map only ever has to be indexed
+ * pixel by pixel once. Each cache file records a hash of the map image and region data
+ * files it was built from, so if either of those changes the cache is simply
+ * ignored and rebuilt.
+ *
+ * The file layout is a header (magic number, version, source hash, map
+ * dimensions), then the border spans, then the number of regions followed by,
+ * for each region, its name and its spans. All spans are written as their
+ * count and then their rows, start xs and end xs as three int arrays.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionSpanCache {
+    // THESE IDENTIFY OUR CACHE FILES
+    public static final int MAGIC_NUMBER = 0x52564958;
+    public static final int VERSION = 2;
+    public static final String HASH_ALGORITHM = "SHA-1";
+
+    // FOR READING THE SOURCE FILES WHEN HASHING THEM
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    // THE FEWEST BYTES A SPAN AND A REGION CAN TAKE UP IN A CACHE FILE,
+    // WHICH IS ITS THREE ints AND ITS NAME'S LENGTH AND AN EMPTY SET OF SPANS
+    private static final int SPAN_BYTES = 3 * 4;
+    private static final int MIN_REGION_BYTES = 4 + 4;
+
+    /**
+     * Computes a hash of the contents of all the sourceFiles, which is what
+     * we'll use to decide if a cache file is still valid.
+     *
+     * @param sourceFiles The files the cache is built from, in a fixed order.
+     *
+     * @return The hash, or null if any of the files could not be read.
+     */
+    public static byte[] hashFiles(File... sourceFiles) {
+	try {
+	    MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+	    byte[] buffer = new byte[HASH_BUFFER_SIZE];
+	    for (File sourceFile : sourceFiles) {
+		try (FileInputStream in = new FileInputStream(sourceFile)) {
+		    int numRead;
+		    while ((numRead = in.read(buffer)) > 0) {
+			digest.update(buffer, 0, numRead);
+		    }
+		}
+	    }
+	    return digest.digest();
+	} catch (IOException | NoSuchAlgorithmException e) {
+	    return null;
+	}
+    }
+
+    /**
+     * Loads the map index from cacheFile by memory mapping it. If the
+     * file doesn't exist, is from an older version, or was built from
+     * different source files or a different sized map, null is returned.
+     *
+     * @param cacheFile The cache file to read.
+     *
+     * @param sourceHash The hash of the current source files.
+     *
+     * @param width The width of the current map.
+     *
+     * @param height The height of the current map.
+     *
+     * @return The border and sub region spans, or null if there is no valid
+     * cache.
+     */
+    public static MapIndex load(File cacheFile, byte[] sourceHash, int width, int height) {
+	if ((sourceHash == null) || !cacheFile.exists()) {
+	    return null;
+	}
+	try (RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+		FileChannel channel = raf.getChannel()) {
+	    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+	    // FIRST MAKE SURE THE HEADER MATCHES
+	    if ((buffer.getInt() != MAGIC_NUMBER) || (buffer.getInt() != VERSION)) {
+		return null;
+	    }
+	    byte[] cachedHash = new byte[readCount(buffer, 1)];
+	    buffer.get(cachedHash);
+	    if (!Arrays.equals(cachedHash, sourceHash)
+		    || (buffer.getInt() != width)
+		    || (buffer.getInt() != height)) {
+		return null;
+	    }
+
+	    // THEN THE BORDERS AND ALL THE REGIONS
+	    SubRegionSpans borderSpans = readSpans(buffer, width, height);
+	    int numRegions = readCount(buffer, MIN_REGION_BYTES);
+	    HashMap<String, SubRegionSpans> subRegionSpans = new HashMap();
+	    for (int i = 0; i < numRegions; i++) {
+		byte[] nameBytes = new byte[readCount(buffer, 1)];
+		buffer.get(nameBytes);
+		String subRegion = new String(nameBytes, StandardCharsets.UTF_8);
+		subRegionSpans.put(subRegion, readSpans(buffer, width, height));
+	    }
+	    return new MapIndex(borderSpans, subRegionSpans);
+	} catch (IOException | RuntimeException e) {
+	    // A TRUNCATED OR CORRUPT FILE IS JUST A CACHE MISS. NOTE THAT EVERY
+	    // COUNT IS CHECKED AGAINST WHAT'S LEFT IN THE FILE BEFORE ANYTHING
+	    // IS MADE THAT BIG, SO A DAMAGED COUNT CAN'T RUN US OUT OF MEMORY,
+	    // AND EVERY SPAN IS CHECKED AGAINST THE MAP, SINCE THE HASH ONLY
+	    // COVERS THE SOURCE FILES, NOT THIS ONE
+	    return null;
+	}
+    }
+
+    // HELPER METHOD FOR READING HOW MANY OF SOMETHING COMES NEXT, WHICH
+    // CAN'T BE MORE THAN WOULD FIT IN THE REST OF THE FILE
+    private static int readCount(MappedByteBuffer buffer, int bytesEach) throws IOException {
+	int count = buffer.getInt();
+	if ((count < 0) || ((long)count * bytesEach > buffer.remaining())) {
+	    throw new IOException("damaged count " + count);
+	}
+	return count;
+    }
+
+    /**
+     * Writes the map index to cacheFile. Note that we write to a
+     * temporary file first and then swap it in, so a crash can never leave a
+     * half written cache behind. Any failure is ignored since the cache is
+     * only an optimization.
+     *
+     * @param cacheFile The cache file to write.
+     *
+     * @param sourceHash The hash of the source files the index came from.
+     *
+     * @param width The width of the map.
+     *
+     * @param height The height of the map.
+     *
+     * @param index The border and sub region spans.
+     */
+    public static void save(File cacheFile, byte[] sourceHash, int width, int height, MapIndex index) {
+	if (sourceHash == null) {
+	    return;
+	}
+	File tempFile = new File(cacheFile.getPath() + ".tmp");
+	try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+	    out.writeInt(MAGIC_NUMBER);
+	    out.writeInt(VERSION);
+	    out.writeInt(sourceHash.length);
+	    out.write(sourceHash);
+	    out.writeInt(width);
+	    out.writeInt(height);
+	    writeSpans(out, index.getBorderSpans());
+	    HashMap<String, SubRegionSpans> subRegionSpans = index.getSubRegionSpans();
+	    out.writeInt(subRegionSpans.size());
+	    for (Map.Entry<String, SubRegionSpans> entry : subRegionSpans.entrySet()) {
+		byte[] nameBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+		out.writeInt(nameBytes.length);
+		out.write(nameBytes);
+		writeSpans(out, entry.getValue());
+	    }
+	} catch (IOException e) {
+	    tempFile.delete();
+	    return;
+	}
+	try {
+	    try {
+		Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	    } catch (AtomicMoveNotSupportedException ex) {
+		Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	    }
+	} catch (IOException e) {
+	    tempFile.delete();
+	}
+    }
+
+    // HELPER METHOD FOR READING ONE SET OF SPANS, EACH OF WHICH MUST BE
+    // SOMEWHERE ON THE MAP
+    private static SubRegionSpans readSpans(MappedByteBuffer buffer, int width, int height) throws IOException {
+	int numSpans = readCount(buffer, SPAN_BYTES);
+	int[] rows = new int[numSpans];
+	int[] startXs = new int[numSpans];
+	int[] endXs = new int[numSpans];
+	IntBuffer ints = buffer.asIntBuffer();
+	ints.get(rows);
+	ints.get(startXs);
+	ints.get(endXs);
+	buffer.position(buffer.position() + (numSpans * SPAN_BYTES));
+	for (int i = 0; i < numSpans; i++) {
+	    if ((rows[i] < 0) || (rows[i] >= height)
+		    || (startXs[i] < 0) || (startXs[i] >= endXs[i]) || (endXs[i] > width)) {
+		throw new IOException("damaged span " + i);
+	    }
+	}
+	return new SubRegionSpans(rows, startXs, endXs);
+    }
+
+    // HELPER METHOD FOR WRITING ONE SET OF SPANS
+    private static void writeSpans(DataOutputStream out, SubRegionSpans spans) throws IOException {
+	int numSpans = spans.getNumSpans();
+	out.writeInt(numSpans);
+	writeInts(out, spans.getRows(), numSpans);
+	writeInts(out, spans.getStartXs(), numSpans);
+	writeInts(out, spans.getEndXs(), numSpans);
+    }
+
+    // HELPER METHOD FOR WRITING THE FIRST count VALUES OF AN int ARRAY
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+	for (int i = 0; i < count; i++) {
+	    out.writeInt(values[i]);
+	}
+    }
+}
@@ -0,0 +1,162 @@
+package regio_vinco;
+
+import java.util.Arrays;
+
+/**
+ * This class stores all the pixels of a single sub region on a map as a
+ * run-length encoded list of horizontal spans. Each span is a row along with
+ * the first x coordinate of the run and the x coordinate just past its end.
+ * All three are kept in primitive int arrays so that even very large regions
+ * only cost a few arrays rather than one small object per pixel.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionSpans {
+    // THE INITIAL NUMBER OF SPANS WE'LL MAKE ROOM FOR
+    private static final int INIT_CAPACITY = 16;
+
+    // THE SPANS THEMSELVES, ONE ENTRY PER SPAN IN EACH ARRAY
+    private int[] rows;
+    private int[] startXs;
+    private int[] endXs;
+    private int numSpans;
+
+    // THE TOTAL NUMBER OF PIXELS COVERED BY ALL THE SPANS
+    private int numPixels;
+
+    /**
+     * Constructor for an empty set of spans.
+     */
+    public SubRegionSpans() {
+	rows = new int[INIT_CAPACITY];
+	startXs = new int[INIT_CAPACITY];
+	endXs = new int[INIT_CAPACITY];
+	numSpans = 0;
+	numPixels = 0;
+    }
+
+    /**
+     * Constructor for a set of spans that has already been built, like when
+     * loading them from a file. Note that the arrays are used as is.
+     *
+     * @param initRows The row of each span.
+     *
+     * @param initStartXs The first x coordinate of each span.
+     *
+     * @param initEndXs The x coordinate just past the end of each span.
+     */
+    public SubRegionSpans(int[] initRows, int[] initStartXs, int[] initEndXs) {
+	rows = initRows;
+	startXs = initStartXs;
+	endXs = initEndXs;
+	numSpans = rows.length;
+	numPixels = 0;
+	for (int i = 0; i < numSpans; i++) {
+	    numPixels += endXs[i] - startXs[i];
+	}
+    }
+
+    // ACCESSOR METHODS
+
+    public int getNumSpans() {
+	return numSpans;
+    }
+
+    public int getNumPixels() {
+	return numPixels;
+    }
+
+    public int getRow(int spanIndex) {
+	return rows[spanIndex];
+    }
+
+    public int getStartX(int spanIndex) {
+	return startXs[spanIndex];
+    }
+
+    /**
+     * Note that the end x is exclusive, so the span covers the pixels
+     * from startX up to, but not including, endX.
+     */
+    public int getEndX(int spanIndex) {
+	return endXs[spanIndex];
+    }
+
+    public int getLength(int spanIndex) {
+	return endXs[spanIndex] - startXs[spanIndex];
+    }
+
+    /**
+     * Provides direct access to the rows of all the spans. Note that only
+     * the first getNumSpans() entries are in use.
+     */
+    public int[] getRows() {
+	return rows;
+    }
+
+    public int[] getStartXs() {
+	return startXs;
+    }
+
+    public int[] getEndXs() {
+	return endXs;
+    }
+
+    // MUTATOR METHODS
+
+    /**
+     * Adds a span to this region, growing the arrays as needed.
+     *
+     * @param row The y coordinate of the span.
+     *
+     * @param startX The first x coordinate in the span.
+     *
+     * @param endX The x coordinate just past the last one in the span.
+     */
+    public void addSpan(int row, int startX, int endX) {
+	if (numSpans == rows.length) {
+	    ensureCapacity(numSpans + 1);
+	}
+	rows[numSpans] = row;
+	startXs[numSpans] = startX;
+	endXs[numSpans] = endX;
+	numSpans++;
+	numPixels += endX - startX;
+    }
+
+    /**
+     * Adds all of the other spans to the end of this region's spans. This is
+     * how the partial spans from separately indexed parts of a map are put
+     * back together, so it should be done in row order.
+     *
+     * @param other The spans to append.
+     */
+    public void addAll(SubRegionSpans other) {
+	ensureCapacity(numSpans + other.numSpans);
+	System.arraycopy(other.rows, 0, rows, numSpans, other.numSpans);
+	System.arraycopy(other.startXs, 0, startXs, numSpans, other.numSpans);
+	System.arraycopy(other.endXs, 0, endXs, numSpans, other.numSpans);
+	numSpans += other.numSpans;
+	numPixels += other.numPixels;
+    }
+
+    // HELPER METHOD FOR GROWING THE ARRAYS SO THEY CAN HOLD minCapacity SPANS
+    private void ensureCapacity(int minCapacity) {
+	if (minCapacity > rows.length) {
+	    int newCapacity = Math.max(Math.max(rows.length * 2, INIT_CAPACITY), minCapacity);
+	    rows = Arrays.copyOf(rows, newCapacity);
+	    startXs = Arrays.copyOf(startXs, newCapacity);
+	    endXs = Arrays.copyOf(endXs, newCapacity);
+	}
+    }
+
+    /**
+     * Frees up any unused room at the end of the span arrays. This is useful
+     * once a region has been fully indexed and will no longer grow.
+     */
+    public void trim() {
+	rows = Arrays.copyOf(rows, numSpans);
+	startXs = Arrays.copyOf(startXs, numSpans);
+	endXs = Arrays.copyOf(endXs, numSpans);
+    }
+}
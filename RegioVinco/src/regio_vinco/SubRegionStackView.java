@@ -0,0 +1,237 @@
+package regio_vinco;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class draws the sub region stack. Rather than making nodes for every
+ * entry in the stack, it keeps a small pool of labels for just the entries
+ * that are on screen, and each frame lends them out to those entries, from
+ * the bottom of the stack up. When the bottom entry is removed its label goes
+ * to the back of the pool, so the other labels keep their entries and only
+ * the one that comes into view has to be redone.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionStackView {
+    // THE SIZE OF A TEXT ENTRY
+    public static final int TEXT_ENTRY_WIDTH = 300;
+    public static final int TEXT_ENTRY_HEIGHT = 50;
+
+    // ALL TEXT ENTRIES SHARE ONE FONT
+    private static final Font TEXT_ENTRY_FONT = Font.font("Verdana", 23);
+
+    // THE STACK WE'RE DRAWING, BOTTOM ENTRY FIRST, AND WHERE ITS ENTRIES ARE
+    private LinkedList<MovableText> stack;
+    private StackMotionEngine motion;
+
+    // THE LAYER THE POOLED NODES ARE IN
+    private Pane layer;
+
+    // ARE WE DRAWING FLAGS OR TEXT?
+    private boolean showingFlags;
+
+    // THE POOLED NODES, IN THE ORDER THEY ARE LENT OUT
+    private ArrayList<StackNode> pool;
+
+    /**
+     * Constructor for a view of initStack, which won't draw anything until it
+     * is reset with a layer to draw in.
+     *
+     * @param initStack The sub region stack, bottom entry first.
+     *
+     * @param initMotion The engine moving the stack's entries.
+     */
+    public SubRegionStackView(LinkedList<MovableText> initStack, StackMotionEngine initMotion) {
+	stack = initStack;
+	motion = initMotion;
+	pool = new ArrayList();
+    }
+
+    public boolean isShowingFlags() {
+	return showingFlags;
+    }
+
+    /**
+     * Gets rid of all the pooled nodes and gets ready to draw a new stack in
+     * initLayer.
+     *
+     * @param initLayer The layer to put the pooled nodes in.
+     *
+     * @param initShowingFlags true if the stack's entries are flags, false if
+     * they are text.
+     */
+    public void reset(Pane initLayer, boolean initShowingFlags) {
+	clear();
+	layer = initLayer;
+	showingFlags = initShowingFlags;
+    }
+
+    /**
+     * Gets rid of all the pooled nodes.
+     */
+    public void clear() {
+	if (layer != null) {
+	    for (StackNode node : pool) {
+		layer.getChildren().remove(node.label);
+	    }
+	}
+	pool.clear();
+    }
+
+    /**
+     * Removes the bottom entry from the stack and from the motion engine,
+     * sending its node to the back of the pool.
+     *
+     * @return The removed entry.
+     */
+    public MovableText removeFirst() {
+	MovableText removed = stack.removeFirst();
+	motion.removeFirst();
+	if (!pool.isEmpty() && (pool.get(0).entry == removed)) {
+	    StackNode node = pool.remove(0);
+	    node.unbind();
+	    pool.add(node);
+	}
+	return removed;
+    }
+
+    /**
+     * Called each frame, this lends the pooled nodes to the entries that are
+     * on screen and moves them to where their entries are. This is the only
+     * place the stack's nodes are touched, so the scene graph only hears about
+     * the entries that can be seen, once a frame.
+     *
+     * @param alpha How far we are between the last update of the entries'
+     * positions and the next, from 0.0 to 1.0.
+     */
+    public void refresh(double alpha) {
+	if (layer == null) {
+	    return;
+	}
+	int nodeIndex = 0;
+	int index = 0;
+	for (MovableText entry : stack) {
+	    double entryX = motion.getInterpolatedX(index, alpha);
+	    double entryY = motion.getInterpolatedY(index, alpha);
+
+	    // ENTRIES FURTHER UP THE STACK ARE HIGHER, SO ONCE
+	    // ONE IS OFF THE TOP OF THE SCREEN THE REST ARE TOO
+	    if ((entryY + getEntryHeight(entry)) < 0) {
+		break;
+	    }
+	    if (entryY <= GAME_HEIGHT) {
+		StackNode node = getNode(nodeIndex);
+		if (node.entry != entry) {
+		    node.bind(entry);
+		}
+		node.setHighlighted((index == 0) && !showingFlags);
+		node.label.setLayoutX(entryX);
+		node.label.setLayoutY(entryY);
+		nodeIndex++;
+	    }
+	    index++;
+	}
+
+	// HIDE THE NODES WE DIDN'T NEED THIS FRAME
+	for (int i = nodeIndex; i < pool.size(); i++) {
+	    pool.get(i).unbind();
+	}
+    }
+
+    /**
+     * Gets the height of entry on screen.
+     *
+     * @param entry An entry in the stack.
+     *
+     * @return The height of its flag if we're drawing flags, else the height
+     * of a text entry.
+     */
+    public double getEntryHeight(MovableText entry) {
+	if (showingFlags && (entry.getImage() != null)) {
+	    return entry.getImage().getHeight();
+	}
+	return TEXT_ENTRY_HEIGHT;
+    }
+
+    // HELPER METHOD FOR GETTING A POOLED NODE, MAKING IT IF THE POOL
+    // ISN'T BIG ENOUGH YET
+    private StackNode getNode(int index) {
+	while (pool.size() <= index) {
+	    StackNode node = new StackNode(showingFlags);
+	    layer.getChildren().add(node.label);
+	    pool.add(node);
+	}
+	return pool.get(index);
+    }
+
+    /**
+     * A pooled label, along with its graphic and the entry it's lent to.
+     */
+    private static class StackNode {
+	private Label label;
+	private Text text;
+	private ImageView flagView;
+	private MovableText entry;
+	private boolean highlighted;
+
+	private StackNode(boolean showingFlags) {
+	    label = new Label();
+	    if (showingFlags) {
+		flagView = new ImageView();
+		label.setGraphic(flagView);
+	    } else {
+		text = new Text();
+		text.setFont(TEXT_ENTRY_FONT);
+		label.setPrefSize(TEXT_ENTRY_WIDTH, TEXT_ENTRY_HEIGHT);
+		label.setGraphic(text);
+	    }
+	    label.setVisible(false);
+	}
+
+	private void bind(MovableText initEntry) {
+	    entry = initEntry;
+	    if (flagView != null) {
+		flagView.setImage(entry.getImage());
+	    } else {
+		text.setText(entry.getText());
+	    }
+	    highlighted = true;
+	    setHighlighted(false);
+	    label.setVisible(true);
+	}
+
+	private void unbind() {
+	    entry = null;
+	    if (flagView != null) {
+		flagView.setImage(null);
+	    }
+	    label.setVisible(false);
+	}
+
+	private void setHighlighted(boolean initHighlighted) {
+	    if (highlighted == initHighlighted) {
+		return;
+	    }
+	    highlighted = initHighlighted;
+	    if (highlighted) {
+		label.setStyle("-fx-background-color: lime");
+		text.setStyle("-fx-fill: crimson");
+	    } else {
+		Color c = entry.getColor();
+		label.setStyle("-fx-background-color: rgb(" + (c.getRed()*255) + "," + (c.getGreen()*255) + "," + (c.getBlue()*255) +");");
+		if (text != null) {
+		    text.setStyle("");
+		    text.setFill(Color.NAVY);
+		}
+	    }
+	}
+    }
+}
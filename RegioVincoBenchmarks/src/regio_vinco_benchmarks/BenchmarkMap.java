@@ -0,0 +1,119 @@
+package regio_vinco_benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import javax.imageio.ImageIO;
+import static regio_vinco.RegioVinco.*;
+import regio_vinco.RegioVincoDataModel;
+import world_data.Region;
+import world_data.WorldDataManager;
+import world_io.WorldIO;
+
+/**
+ * This class loads one of the game's real maps for the benchmarks, along with
+ * the colors of its sub regions. Note that the map is decoded with ImageIO
+ * rather than JavaFX so that no JavaFX toolkit is needed just to get at its
+ * pixels.
+ *
+ * The game's files are found relative to the RegioVinco project directory,
+ * which is ../RegioVinco/ unless the regio_vinco.dir system property says
+ * otherwise.
+ *
+ * @author McKillaGorilla
+ */
+public class BenchmarkMap {
+    // WHERE TO FIND THE GAME'S FILES
+    public static final String REGIO_VINCO_DIR_PROPERTY = "regio_vinco.dir";
+    public static final String DEFAULT_REGIO_VINCO_DIR = "../RegioVinco/";
+
+    // THE MAP'S REGION, SIZE AND ORIGINAL PIXELS
+    private String regionName;
+    private int width;
+    private int height;
+    private int[] argbs;
+
+    // THE COLOR OF EACH SUB REGION ON THE MAP
+    private HashMap<Integer, String> argbToSubRegion;
+
+    private BenchmarkMap() {
+	argbToSubRegion = new HashMap();
+    }
+
+    // ACCESSOR METHODS
+
+    public String getRegionName() {
+	return regionName;
+    }
+
+    public int getWidth() {
+	return width;
+    }
+
+    public int getHeight() {
+	return height;
+    }
+
+    /**
+     * @return A copy of the map's original pixels, since preprocessing a map
+     * changes its pixels.
+     */
+    public int[] copyArgbs() {
+	return argbs.clone();
+    }
+
+    public HashMap<Integer, String> getArgbToSubRegion() {
+	return argbToSubRegion;
+    }
+
+    /**
+     * Loads the map for a region, reading the data for the region and all of
+     * its ancestors along the way, as the game would have by the time the
+     * player got to it.
+     *
+     * @param mapPath The region's path under the data directory, like
+     * "The World/Europe".
+     *
+     * @return The loaded map.
+     *
+     * @throws IOException If the map or its data can't be read.
+     */
+    public static BenchmarkMap load(String mapPath) throws IOException {
+	String dir = System.getProperty(REGIO_VINCO_DIR_PROPERTY, DEFAULT_REGIO_VINCO_DIR);
+	if (!dir.endsWith("/")) {
+	    dir += "/";
+	}
+	WorldDataManager world = new WorldDataManager();
+	world.setWorldImporterExporter(new WorldIO(new File(dir + FILE_WORLD_SCHEMA)));
+
+	// LOAD THE DATA FOR EACH REGION ON THE WAY DOWN TO THIS ONE
+	String[] regionNames = mapPath.split("/");
+	String path = dir + DATA_PATH;
+	for (String name : regionNames) {
+	    path += name + "/";
+	    File xmlFile = new File(path + name + XML_FILE_PATH);
+	    if (!world.load(xmlFile)) {
+		throw new IOException("Could not load " + xmlFile.getPath());
+	    }
+	}
+
+	BenchmarkMap map = new BenchmarkMap();
+	map.regionName = regionNames[regionNames.length - 1];
+	Region region = world.getAllRegions().get(map.regionName);
+	for (Region subRegion : region.getSubRegionsAL()) {
+	    int argb = RegioVincoDataModel.makeArgb(subRegion.getRed(), subRegion.getGreen(), subRegion.getBlue());
+	    map.argbToSubRegion.put(argb, subRegion.getName());
+	}
+
+	File mapFile = new File(path + map.regionName + MAP_FILE_PATH);
+	BufferedImage image = ImageIO.read(mapFile);
+	if (image == null) {
+	    throw new IOException("Could not decode " + mapFile.getPath());
+	}
+	map.width = image.getWidth();
+	map.height = image.getHeight();
+	map.argbs = image.getRGB(0, 0, map.width, map.height, null, 0, map.width);
+	return map;
+    }
+}
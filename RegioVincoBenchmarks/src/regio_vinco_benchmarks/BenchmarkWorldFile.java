@@ -0,0 +1,163 @@
+package regio_vinco_benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import static regio_vinco.RegioVinco.*;
+import world_data.Region;
+import world_data.RegionType;
+import world_data.WorldDataManager;
+
+/**
+ * This class finds one of the game's region data files for the benchmarks,
+ * or makes up a synthetic one, along with what has to be in a world before
+ * the file can be loaded into it. WorldIO only loads a region's file into a
+ * world that already has the region and its parent, since that's how it
+ * knows the region's type, so we remember the region's ancestors and can
+ * put copies of them into a fresh world before each load.
+ *
+ * Like BenchmarkMap, this finds the game's files relative to the RegioVinco
+ * project directory.
+ *
+ * @author McKillaGorilla
+ */
+public class BenchmarkWorldFile {
+    // PASS THIS INSTEAD OF A FILE TO GET A MADE UP FILE WITH THIS MANY SUB REGIONS
+    public static final String SYNTHETIC_PREFIX = "synthetic ";
+
+    // THE FILE AND THE SCHEMA IT'S VALIDATED AGAINST
+    private File xmlFile;
+    private File schemaFile;
+
+    // THE NAMES OF THE REGIONS FROM THE WORLD DOWN TO THE FILE'S REGION, WHICH
+    // IS EMPTY FOR THE WORLD'S OWN FILE SINCE THAT'S LOADED INTO AN EMPTY WORLD
+    private ArrayList<String> ancestorNames;
+
+    private BenchmarkWorldFile() {
+	ancestorNames = new ArrayList();
+    }
+
+    // ACCESSOR METHODS
+
+    public File getXmlFile() {
+	return xmlFile;
+    }
+
+    public File getSchemaFile() {
+	return schemaFile;
+    }
+
+    /**
+     * Makes a new world that's ready for this file to be loaded into it,
+     * meaning it has the file's region and all of its ancestors, each with
+     * the right type.
+     *
+     * @return The world to load the file into.
+     */
+    public WorldDataManager makeWorld() {
+	WorldDataManager world = new WorldDataManager();
+	RegionType[] types = RegionType.values();
+	Region parent = null;
+	for (int i = 0; i < ancestorNames.size(); i++) {
+	    Region region = new Region(ancestorNames.get(i));
+	    region.setType(types[i]);
+	    world.addRegion(region, parent);
+	    parent = region;
+	}
+	return world;
+    }
+
+    /**
+     * Finds a data file and works out where its region is in the world.
+     *
+     * @param dataFile The file's path under the data directory, like
+     * "The World/Europe/Europe Data.xml", or "synthetic " followed by a number
+     * of sub regions to make up a file with that many.
+     *
+     * @return The file, ready to be loaded.
+     *
+     * @throws IOException If the file can't be read or made.
+     */
+    public static BenchmarkWorldFile find(String dataFile) throws IOException {
+	String dir = System.getProperty(BenchmarkMap.REGIO_VINCO_DIR_PROPERTY, BenchmarkMap.DEFAULT_REGIO_VINCO_DIR);
+	if (!dir.endsWith("/")) {
+	    dir += "/";
+	}
+	BenchmarkWorldFile worldFile = new BenchmarkWorldFile();
+	worldFile.schemaFile = new File(dir + FILE_WORLD_SCHEMA);
+	if (dataFile.startsWith(SYNTHETIC_PREFIX)) {
+	    // A MADE UP WORLD NEEDS NOTHING ELSE IN THE WORLD
+	    int numSubRegions = Integer.parseInt(dataFile.substring(SYNTHETIC_PREFIX.length()));
+	    worldFile.xmlFile = makeSyntheticFile(numSubRegions);
+	    return worldFile;
+	}
+	worldFile.xmlFile = new File(dir + DATA_PATH + dataFile);
+	if (!worldFile.xmlFile.isFile()) {
+	    throw new IOException("Could not find " + worldFile.xmlFile.getPath());
+	}
+
+	// THE FILE IS NAMED FOR ITS REGION, BUT ISN'T ALWAYS IN THAT REGION'S
+	// DIRECTORY, SO FIND THE DIRECTORY. NOTE THAT WE DON'T PARSE THE FILE TO
+	// GET THE REGION'S NAME SO THAT COLD LOADS ARE REALLY COLD
+	String regionName = worldFile.xmlFile.getName().replace(XML_FILE_PATH, "");
+	File worldDir = new File(dir + DATA_PATH + "The World");
+	if (!regionName.equals(worldDir.getName())) {
+	    File regionDir = findDirectory(worldDir, regionName);
+	    if (regionDir == null) {
+		throw new IOException("Could not find where " + regionName + " is in the world");
+	    }
+	    for (File d = regionDir; !d.equals(worldDir.getParentFile()); d = d.getParentFile()) {
+		worldFile.ancestorNames.add(0, d.getName());
+	    }
+	}
+	return worldFile;
+    }
+
+    /**
+     * Searches under dir, breadth first, for the directory with the name.
+     */
+    private static File findDirectory(File dir, String name) {
+	ArrayList<File> toSearch = new ArrayList();
+	toSearch.add(dir);
+	for (int i = 0; i < toSearch.size(); i++) {
+	    File[] children = toSearch.get(i).listFiles();
+	    if (children == null) {
+		continue;
+	    }
+	    for (File child : children) {
+		if (child.isDirectory()) {
+		    if (child.getName().equals(name)) {
+			return child;
+		    }
+		    toSearch.add(child);
+		}
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Writes a data file for the world with a lot of sub regions, each with
+     * its own color, name, capital and leader, to a temporary file that's
+     * deleted when the benchmark's JVM exits.
+     */
+    private static File makeSyntheticFile(int numSubRegions) throws IOException {
+	File file = File.createTempFile("Synthetic Data", ".xml");
+	file.deleteOnExit();
+	try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+	    writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+	    writer.println("<region name=\"The World\">");
+	    for (int i = 0; i < numSubRegions; i++) {
+		writer.println("\t<sub_region red=\"" + ((i >> 16) & 0xFF)
+			+ "\" green=\"" + ((i >> 8) & 0xFF)
+			+ "\" blue=\"" + (i & 0xFF)
+			+ "\" name=\"Region " + i
+			+ "\" capital=\"Capital " + i
+			+ "\" leader=\"Leader " + i + "\"/>");
+	    }
+	    writer.println("</region>");
+	}
+	return file;
+    }
+}
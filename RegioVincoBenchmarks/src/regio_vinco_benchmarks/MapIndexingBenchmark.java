@@ -0,0 +1,72 @@
+package regio_vinco_benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import regio_vinco.MapIndex;
+import regio_vinco.MapPreprocessor;
+import regio_vinco.SubRegionLabelMap;
+
+/**
+ * These benchmarks time what reloadMap does to a freshly decoded map, which
+ * is finding every sub region's pixels and rewriting the borders, both in
+ * parallel stripes as the game does it and in one sequential pass, and then
+ * building the label map used for hit testing.
+ *
+ * Note that indexing changes the map's pixels, so each invocation gets a fresh
+ * copy of them. The copy isn't timed, but since invocations take milliseconds
+ * the setup overhead JMH warns about for Level.Invocation doesn't matter here.
+ *
+ * @author McKillaGorilla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapIndexingBenchmark {
+    @Param({"The World", "The World/Europe", "The World/Europe/England", "The World/Europe/Turkey"})
+    public String mapPath;
+
+    private BenchmarkMap map;
+    private MapIndex index;
+    private int[] argbs;
+
+    @Setup(Level.Trial)
+    public void loadMap() throws IOException {
+	map = BenchmarkMap.load(mapPath);
+	index = MapPreprocessor.preprocess(map.copyArgbs(), map.getWidth(), map.getHeight(), map.getArgbToSubRegion());
+    }
+
+    @Setup(Level.Invocation)
+    public void copyPixels() {
+	argbs = map.copyArgbs();
+    }
+
+    @Benchmark
+    public MapIndex preprocessParallel() {
+	return MapPreprocessor.preprocess(argbs, map.getWidth(), map.getHeight(), map.getArgbToSubRegion());
+    }
+
+    @Benchmark
+    public MapIndex preprocessSequential() {
+	return MapPreprocessor.preprocessRows(argbs, map.getWidth(), 0, map.getHeight(), map.getArgbToSubRegion());
+    }
+
+    @Benchmark
+    public SubRegionLabelMap buildLabelMap() {
+	return SubRegionLabelMap.build(index.getSubRegionSpans(), map.getArgbToSubRegion(), map.getWidth(), map.getHeight());
+    }
+}
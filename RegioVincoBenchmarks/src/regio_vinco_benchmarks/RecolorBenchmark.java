@@ -0,0 +1,89 @@
+package regio_vinco_benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.image.WritableImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import regio_vinco.MapIndex;
+import regio_vinco.MapPixelBuffer;
+import regio_vinco.MapPreprocessor;
+import regio_vinco.SubRegionLabelMap;
+import regio_vinco.SubRegionRecolorQueue;
+
+/**
+ * These benchmarks time what changeSubRegionColorOnMap and the end of frame
+ * flush do together, which is drawing sub regions in a new color in the map's
+ * buffer and pushing the changed rectangle to the map image. One benchmark
+ * recolors a single sub region, as for a correct guess, and the other
+ * recolors all of them, as for the C key or a win.
+ *
+ * Each invocation alternates between two colors so that every one of them
+ * really changes the pixels.
+ *
+ * @author McKillaGorilla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecolorBenchmark {
+    // THE COLORS WE ALTERNATE BETWEEN
+    private static final int GREEN_ARGB = 0xFF008000;
+    private static final int RED_ARGB = 0xFFFF0000;
+
+    @Param({"The World", "The World/Europe", "The World/Europe/England", "The World/Europe/Turkey"})
+    public String mapPath;
+
+    private SubRegionLabelMap labels;
+    private MapPixelBuffer buffer;
+    private SubRegionRecolorQueue queue;
+    private int argb;
+    private int nextSubRegionId;
+
+    @Setup(Level.Trial)
+    public void loadMap() throws IOException {
+	BenchmarkMap map = BenchmarkMap.load(mapPath);
+	int[] argbs = map.copyArgbs();
+	MapIndex index = MapPreprocessor.preprocess(argbs, map.getWidth(), map.getHeight(), map.getArgbToSubRegion());
+	labels = SubRegionLabelMap.build(index.getSubRegionSpans(), map.getArgbToSubRegion(), map.getWidth(), map.getHeight());
+	buffer = new MapPixelBuffer(new WritableImage(map.getWidth(), map.getHeight()), argbs);
+	queue = new SubRegionRecolorQueue(labels.getNumSubRegions());
+	argb = GREEN_ARGB;
+	nextSubRegionId = 1;
+    }
+
+    @Benchmark
+    public MapPixelBuffer recolorOneSubRegion() {
+	int id = nextSubRegionId;
+	nextSubRegionId = (nextSubRegionId % labels.getNumSubRegions()) + 1;
+	argb = (argb == GREEN_ARGB) ? RED_ARGB : GREEN_ARGB;
+	queue.queue(id, argb);
+	labels.setCurrentArgb(id, argb);
+	queue.flush(labels, buffer);
+	return buffer;
+    }
+
+    @Benchmark
+    public MapPixelBuffer recolorAllSubRegions() {
+	argb = (argb == GREEN_ARGB) ? RED_ARGB : GREEN_ARGB;
+	for (int id = 1; id <= labels.getNumSubRegions(); id++) {
+	    queue.queue(id, argb);
+	    labels.setCurrentArgb(id, argb);
+	}
+	queue.flush(labels, buffer);
+	return buffer;
+    }
+}
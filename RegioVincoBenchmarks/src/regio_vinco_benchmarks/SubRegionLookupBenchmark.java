@@ -0,0 +1,88 @@
+package regio_vinco_benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import regio_vinco.MapIndex;
+import regio_vinco.MapPreprocessor;
+import regio_vinco.SubRegionLabelMap;
+
+/**
+ * These benchmarks time finding which sub region is under the mouse, which is
+ * done for every mouse move and click on the map. It's done the way the game
+ * does it now, with the label map, and the way it used to, by reading the
+ * pixel's color and looking it up in a hash map.
+ *
+ * The points are random but the same every run, and each invocation looks up
+ * all of them, so times are reported per lookup.
+ *
+ * @author McKillaGorilla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubRegionLookupBenchmark {
+    // THE NUMBER OF POINTS LOOKED UP EACH INVOCATION
+    public static final int NUM_POINTS = 4096;
+
+    @Param({"The World", "The World/Europe", "The World/Europe/England", "The World/Europe/Turkey"})
+    public String mapPath;
+
+    private int width;
+    private int[] argbs;
+    private HashMap<Integer, String> argbToSubRegion;
+    private SubRegionLabelMap labels;
+    private int[] xs;
+    private int[] ys;
+
+    @Setup(Level.Trial)
+    public void loadMap() throws IOException {
+	BenchmarkMap map = BenchmarkMap.load(mapPath);
+	width = map.getWidth();
+	argbs = map.copyArgbs();
+	argbToSubRegion = map.getArgbToSubRegion();
+	MapIndex index = MapPreprocessor.preprocess(argbs, map.getWidth(), map.getHeight(), argbToSubRegion);
+	labels = SubRegionLabelMap.build(index.getSubRegionSpans(), argbToSubRegion, map.getWidth(), map.getHeight());
+	Random random = new Random(NUM_POINTS);
+	xs = new int[NUM_POINTS];
+	ys = new int[NUM_POINTS];
+	for (int i = 0; i < NUM_POINTS; i++) {
+	    xs[i] = random.nextInt(map.getWidth());
+	    ys[i] = random.nextInt(map.getHeight());
+	}
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public void labelMapLookup(Blackhole blackhole) {
+	for (int i = 0; i < NUM_POINTS; i++) {
+	    blackhole.consume(labels.getSelectableSubRegionAt(xs[i], ys[i]));
+	}
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public void colorHashMapLookup(Blackhole blackhole) {
+	for (int i = 0; i < NUM_POINTS; i++) {
+	    blackhole.consume(argbToSubRegion.get(argbs[(ys[i] * width) + xs[i]]));
+	}
+    }
+}
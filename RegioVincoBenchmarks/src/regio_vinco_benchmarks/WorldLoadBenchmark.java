@@ -0,0 +1,247 @@
+package regio_vinco_benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.w3c.dom.Document;
+import world_data.WorldDataManager;
+import world_io.WorldIO;
+import world_io.WorldStreamIO;
+import xml_utilities.InvalidXMLFileFormatException;
+import xml_utilities.XMLUtilities;
+
+/**
+ * These benchmarks time loading the game's region data files, which is
+ * validating each one against the schema, parsing it into a DOM and then
+ * turning that into regions. There's a warm load, where the same WorldIO is
+ * used again and again, the same for the WorldStreamIO the game now uses,
+ * a load of the same regions from a binary snapshot made by WorldIO, a cold
+ * load, which times the very first load in a new JVM, and the
+ * validation and the parsing on their own, so we can see where the time
+ * goes. The cold load gets a new JVM for each of its ten measurements, so
+ * it takes a while.
+ *
+ * Every load needs a world of its own to load into, and making one mustn't
+ * be timed, but setting up before every call costs more than the fastest
+ * loads take. So the loads are timed in batches of WORLDS_PER_ITERATION
+ * instead, each into one of a batch of worlds made before the iteration
+ * starts. Their scores are for the whole batch, so divide them by
+ * WORLDS_PER_ITERATION to get the time for one load. The validation
+ * and parsing don't need a world, so they're timed as usual, with nothing
+ * set up between calls.
+ *
+ * Loads throw rather than return false when a file doesn't load, so that we
+ * never end up timing the failure instead.
+ *
+ * Every data file that loads is benchmarked, along with a made up one for the
+ * world with 10,000 sub regions. To also see how much each load allocates,
+ * add the GC profiler, and to pick files, pass dataFile, like this:
+ *
+ *     ant run -Djmh.args="WorldLoad -prof gc -p dataFile='synthetic 10000'"
+ *
+ * Note that three of the files aren't here since they don't load. Russia's
+ * has curly quotes around its attributes, Wales's never closes its
+ * sub_region elements and the old Ukraine file in data/xml gives its region
+ * element two capital attributes.
+ *
+ * @author McKillaGorilla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldLoadBenchmark {
+    // HOW MANY LOADS ARE TIMED TOGETHER
+    public static final int WORLDS_PER_ITERATION = 100;
+
+    @Param({
+	"The World/The World Data.xml",
+	"The World/Europe/Europe Data.xml",
+	"The World/Europe/Albania/Albania Data.xml",
+	"The World/Europe/Andorra/Andorra Data.xml",
+	"The World/Europe/Austria/Austria Data.xml",
+	"The World/Europe/Belarus/Belarus Data.xml",
+	"The World/Europe/Belgium/Belgium Data.xml",
+	"The World/Europe/Bosnia and Herzegovina/Bosnia and Herzegovina Data.xml",
+	"The World/Europe/Bulgaria/Bulgaria Data.xml",
+	"The World/Europe/Croatia/Croatia Data.xml",
+	"The World/Europe/Cyprus/Cyprus Data.xml",
+	"The World/Europe/Czech Republic/Czech Republic Data.xml",
+	"The World/Europe/Denmark/Denmark Data.xml",
+	"The World/Europe/England/England Data.xml",
+	"The World/Europe/Estonia/Estonia Data.xml",
+	"The World/Europe/Finland/Finland Data.xml",
+	"The World/Europe/France/France Data.xml",
+	"The World/Europe/Germany/Germany Data.xml",
+	"The World/Europe/Greece/Greece Data.xml",
+	"The World/Europe/Hungary/Hungary Data.xml",
+	"The World/Europe/Iceland/Iceland Data.xml",
+	"The World/Europe/Ireland/Ireland Data.xml",
+	"The World/Europe/Italy/Italy Data.xml",
+	"The World/Europe/Kosovo/Kosovo Data.xml",
+	"The World/Europe/Latvia/Latvia Data.xml",
+	"The World/Europe/Liechtenstein/Liechtenstein Data.xml",
+	"The World/Europe/Lithuania/Lithuania Data.xml",
+	"The World/Europe/Luxembourg/Luxembourg Data.xml",
+	"The World/Europe/Macedonia/Macedonia Data.xml",
+	"The World/Europe/Moldova/Moldova Data.xml",
+	"The World/Europe/Monaco/Monaco Data.xml",
+	"The World/Europe/Montenegro/Montenegro Data.xml",
+	"The World/Europe/Netherlands/Netherlands Data.xml",
+	"The World/Europe/Northern Ireland/Northern Ireland Data.xml",
+	"The World/Europe/Norway/Norway Data.xml",
+	"The World/Europe/Poland/Poland Data.xml",
+	"The World/Europe/Portugal/Portugal Data.xml",
+	"The World/Europe/Romania/Romania Data.xml",
+	"The World/Europe/San Marino/San Marino Data.xml",
+	"The World/Europe/Scotland/Scotland Data.xml",
+	"The World/Europe/Serbia/Serbia Data.xml",
+	"The World/Europe/Slovakia/Slovakia Data.xml",
+	"The World/Europe/Slovenia/Slovenia Data.xml",
+	"The World/Europe/Spain/Spain Data.xml",
+	"The World/Europe/Sweden/Sweden Data.xml",
+	"The World/Europe/Switzerland/Switzerland Data.xml",
+	"The World/Europe/Turkey/Turkey Data.xml",
+	"The World/Europe/Ukraine/Ukraine Data.xml",
+	"The World/Europe/Vatican City/Vatican City Data.xml",
+	"The World/North America/North America Data.xml",
+	"The World/North America/USA/USA Data.xml",
+	"The World/North America/USA/New York/New York Data.xml",
+	"xml/The World Data.xml",
+	"xml/Europe Data.xml",
+	"xml/Spain Data.xml",
+	BenchmarkWorldFile.SYNTHETIC_PREFIX + "10000"
+    })
+    public String dataFile;
+
+    private BenchmarkWorldFile worldFile;
+    private String xmlPath;
+    private String schemaPath;
+    private WorldIO worldIO;
+    private WorldStreamIO worldStreamIO;
+    private XMLUtilities xmlUtil;
+    private File snapshotFile;
+
+    @Setup(Level.Trial)
+    public void findFile() throws IOException {
+	worldFile = BenchmarkWorldFile.find(dataFile);
+	xmlPath = worldFile.getXmlFile().getAbsolutePath();
+	schemaPath = worldFile.getSchemaFile().getAbsolutePath();
+	worldIO = new WorldIO(worldFile.getSchemaFile());
+	worldStreamIO = new WorldStreamIO(worldFile.getSchemaFile());
+	xmlUtil = new XMLUtilities();
+
+	// SNAPSHOT THE FILE'S REGIONS, ALONG WITH THEIR STUB ANCESTORS
+	WorldDataManager snapshotWorld = worldFile.makeWorld();
+	if (!worldStreamIO.loadWorld(worldFile.getXmlFile(), snapshotWorld)) {
+	    throw new IOException("Could not load " + xmlPath);
+	}
+	snapshotFile = File.createTempFile("world", ".snapshot");
+	snapshotFile.deleteOnExit();
+	if (!worldIO.saveWorld(snapshotFile, snapshotWorld)) {
+	    throw new IOException("Could not save " + snapshotFile.getPath());
+	}
+    }
+
+    /**
+     * A world for each load in an iteration, all made before the iteration
+     * starts.
+     */
+    @State(Scope.Thread)
+    public static class Worlds {
+	private WorldDataManager[] worlds;
+	private int nextWorld;
+
+	@Setup(Level.Iteration)
+	public void makeWorlds(WorldLoadBenchmark benchmark, IterationParams iterationParams) {
+	    worlds = new WorldDataManager[iterationParams.getBatchSize()];
+	    for (int i = 0; i < worlds.length; i++) {
+		worlds[i] = benchmark.worldFile.makeWorld();
+	    }
+	    nextWorld = 0;
+	}
+
+	// EACH WORLD IS LET GO OF AS SOON AS IT'S HANDED OUT, SO A WHOLE
+	// BATCH OF LOADED WORLDS NEVER HAS TO FIT IN MEMORY AT ONCE
+	WorldDataManager next() {
+	    WorldDataManager world = worlds[nextWorld];
+	    worlds[nextWorld++] = null;
+	    return world;
+	}
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10, batchSize = WORLDS_PER_ITERATION)
+    @Measurement(iterations = 10, batchSize = WORLDS_PER_ITERATION)
+    public WorldDataManager loadWorldWarm(Worlds worlds) throws IOException {
+	WorldDataManager world = worlds.next();
+	if (!worldIO.loadWorld(worldFile.getXmlFile(), world)) {
+	    throw new IOException("Could not load " + xmlPath);
+	}
+	return world;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10, batchSize = WORLDS_PER_ITERATION)
+    @Measurement(iterations = 10, batchSize = WORLDS_PER_ITERATION)
+    public WorldDataManager loadWorldStreamingWarm(Worlds worlds) throws IOException {
+	WorldDataManager world = worlds.next();
+	if (!worldStreamIO.loadWorld(worldFile.getXmlFile(), world)) {
+	    throw new IOException("Could not load " + xmlPath);
+	}
+	return world;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 10, batchSize = WORLDS_PER_ITERATION)
+    @Measurement(iterations = 10, batchSize = WORLDS_PER_ITERATION)
+    public WorldDataManager loadWorldSnapshotWarm(Worlds worlds) throws IOException {
+	WorldDataManager world = worlds.next();
+	if (!worldIO.loadWorld(snapshotFile, world)) {
+	    throw new IOException("Could not load " + snapshotFile.getPath());
+	}
+	return world;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1, batchSize = 1)
+    @Fork(10)
+    public WorldDataManager loadWorldCold(Worlds worlds) throws IOException {
+	WorldDataManager world = worlds.next();
+	WorldIO coldWorldIO = new WorldIO(worldFile.getSchemaFile());
+	if (!coldWorldIO.loadWorld(worldFile.getXmlFile(), world)) {
+	    throw new IOException("Could not load " + xmlPath);
+	}
+	return world;
+    }
+
+    @Benchmark
+    public boolean validateXMLDoc() {
+	return xmlUtil.validateXMLDoc(xmlPath, schemaPath);
+    }
+
+    @Benchmark
+    public Document loadXMLDocument() throws InvalidXMLFileFormatException {
+	return xmlUtil.loadXMLDocument(xmlPath, schemaPath);
+    }
+}
@@ -0,0 +1,143 @@
+package pacg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**
+ * This class times each phase of each frame, keeping a FrameTimeHistogram for
+ * every phase, so that we can see where a frame's time goes. The timer and the
+ * game mark where each phase starts and ends, the times can be shown on screen
+ * along with the debug text, and they can be written to a file to be looked
+ * at later.
+ *
+ * @author McKillaGorilla
+ */
+public class FrameProfiler {
+    // THE PHASES OF A FRAME
+    public static final int INPUT_PHASE = 0;
+    public static final int UPDATE_PHASE = 1;
+    public static final int GUI_PHASE = 2;
+    public static final int FLUSH_PHASE = 3;
+    public static final int FRAME_PHASE = 4;
+    public static final int NUM_PHASES = 5;
+
+    // THE NAME OF EACH PHASE, FOR REPORTING
+    public static final String[] PHASE_NAMES = {"input", "update", "gui", "flush", "frame"};
+
+    // THE PERCENTILES WE REPORT
+    public static final double[] REPORTED_PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    // WHERE THE TIMES ARE WRITTEN BY DEFAULT
+    public static final String DEFAULT_DUMP_FILE_PATH = "./frame_times.txt";
+
+    // NANOSECONDS IN A MILLISECOND, SINCE WE REPORT IN MILLISECONDS
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    // THE TIMES FOR EACH PHASE
+    private FrameTimeHistogram[] histograms;
+
+    // WHEN EACH PHASE THAT'S UNDERWAY STARTED
+    private long[] phaseStartTimes;
+
+    /**
+     * Constructor for a profiler that has yet to time anything.
+     */
+    public FrameProfiler() {
+	histograms = new FrameTimeHistogram[NUM_PHASES];
+	for (int i = 0; i < NUM_PHASES; i++) {
+	    histograms[i] = new FrameTimeHistogram();
+	}
+	phaseStartTimes = new long[NUM_PHASES];
+    }
+
+    public FrameTimeHistogram getHistogram(int phase) {
+	return histograms[phase];
+    }
+
+    /**
+     * Marks the start of phase.
+     *
+     * @param phase One of the phases of a frame.
+     */
+    public void startPhase(int phase) {
+	phaseStartTimes[phase] = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of phase, recording how long it took since it started.
+     *
+     * @param phase One of the phases of a frame.
+     */
+    public void endPhase(int phase) {
+	histograms[phase].record(System.nanoTime() - phaseStartTimes[phase]);
+    }
+
+    /**
+     * Forgets all the recorded times.
+     */
+    public void reset() {
+	for (FrameTimeHistogram histogram : histograms) {
+	    histogram.reset();
+	}
+    }
+
+    /**
+     * Describes the times for each phase, one line per phase, in milliseconds.
+     *
+     * @return The lines, starting with a heading.
+     */
+    public ArrayList<String> getSummary() {
+	ArrayList<String> summary = new ArrayList();
+	StringBuilder heading = new StringBuilder(String.format("%-10s%8s%10s", "phase (ms)", "count", "mean"));
+	for (double percentile : REPORTED_PERCENTILES) {
+	    heading.append(String.format("%10s", "p" + formatPercentile(percentile)));
+	}
+	heading.append(String.format("%10s", "max"));
+	summary.add(heading.toString());
+	for (int i = 0; i < NUM_PHASES; i++) {
+	    FrameTimeHistogram histogram = histograms[i];
+	    StringBuilder line = new StringBuilder(String.format("%-10s%8d%10.3f", PHASE_NAMES[i], histogram.getTotalCount(), histogram.getMeanTime() / NANOS_PER_MILLI));
+	    for (double percentile : REPORTED_PERCENTILES) {
+		line.append(String.format("%10.3f", histogram.getTimeAtPercentile(percentile) / NANOS_PER_MILLI));
+	    }
+	    line.append(String.format("%10.3f", histogram.getMaxTime() / NANOS_PER_MILLI));
+	    summary.add(line.toString());
+	}
+	return summary;
+    }
+
+    /**
+     * Writes the times for each phase to dumpFile, first the summary and then
+     * the full distribution of each phase, as the time in milliseconds at
+     * each whole percentile.
+     *
+     * @param dumpFile The file to write to, which is replaced if it exists.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    public void dump(File dumpFile) throws IOException {
+	try (PrintWriter writer = new PrintWriter(dumpFile)) {
+	    for (String line : getSummary()) {
+		writer.println(line);
+	    }
+	    writer.println();
+	    writer.println("phase\tpercentile\tms");
+	    for (int i = 0; i < NUM_PHASES; i++) {
+		for (int percentile = 0; percentile <= 100; percentile++) {
+		    long time = histograms[i].getTimeAtPercentile(percentile);
+		    writer.println(PHASE_NAMES[i] + "\t" + percentile + "\t" + String.format("%.3f", time / NANOS_PER_MILLI));
+		}
+	    }
+	}
+    }
+
+    // HELPER METHOD FOR SHOWING 99.0 AS 99 BUT 99.9 AS 99.9
+    private static String formatPercentile(double percentile) {
+	if (percentile == Math.floor(percentile)) {
+	    return String.valueOf((int)percentile);
+	}
+	return String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,149 @@
+package pacg;
+
+/**
+ * This class counts how long something took, in nanoseconds, in a fixed set
+ * of buckets so that recording a time never allocates and percentiles can be
+ * read back at any time. Buckets are spaced log-linearly, which is to say each
+ * power of 2 is split into the same number of equal sized buckets, so a time
+ * is always known to within a small percentage of itself whether it's a few
+ * microseconds or a few seconds.
+ *
+ * @author McKillaGorilla
+ */
+public class FrameTimeHistogram {
+    // TIMES UNDER 2^SUB_BUCKET_BITS ARE COUNTED EXACTLY, AND EACH POWER OF
+    // 2 AFTER THAT IS SPLIT INTO 2^(SUB_BUCKET_BITS - 1), OR 32, BUCKETS.
+    // A TIME IS REPORTED AS THE TOP OF ITS BUCKET, SO IT'S NEVER LOW AND
+    // IS AT MOST 1 PART IN 32, ABOUT 3%, HIGH
+    public static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // TIMES ARE COUNTED UP TO 2^MAX_MAGNITUDE NANOSECONDS, OVER A
+    // MINUTE, AND ANYTHING LONGER GOES IN THE LAST BUCKET
+    public static final int MAX_MAGNITUDE = 36;
+
+    // THE COUNT FOR EACH BUCKET
+    private long[] counts;
+
+    // AND SOME THINGS WE KNOW EXACTLY
+    private long totalCount;
+    private long totalTime;
+    private long minTime;
+    private long maxTime;
+
+    /**
+     * Constructor for an empty histogram.
+     */
+    public FrameTimeHistogram() {
+	// ONE BUCKET FOR EACH TIME UNDER SUB_BUCKET_COUNT, HALF THAT FOR EACH
+	// POWER OF 2 AFTER THAT UP TO MAX_MAGNITUDE, AND ONE FOR EVERYTHING LONGER
+	counts = new long[((MAX_MAGNITUDE - SUB_BUCKET_BITS + 3) * (SUB_BUCKET_COUNT / 2)) + 1];
+	reset();
+    }
+
+    // ACCESSOR METHODS
+
+    public long getTotalCount() {
+	return totalCount;
+    }
+
+    public long getMinTime() {
+	return (totalCount == 0) ? 0 : minTime;
+    }
+
+    public long getMaxTime() {
+	return maxTime;
+    }
+
+    public double getMeanTime() {
+	return (totalCount == 0) ? 0 : ((double)totalTime)/totalCount;
+    }
+
+    /**
+     * Records that something took time nanoseconds.
+     *
+     * @param time How long it took, in nanoseconds.
+     */
+    public void record(long time) {
+	if (time < 0) {
+	    time = 0;
+	}
+	counts[getBucketIndex(time)]++;
+	totalCount++;
+	totalTime += time;
+	if (time < minTime) {
+	    minTime = time;
+	}
+	if (time > maxTime) {
+	    maxTime = time;
+	}
+    }
+
+    /**
+     * Gets the time that percentile percent of the recorded times are at or
+     * under, to within the accuracy of the buckets, which means it may be up
+     * to about 3% higher than the actual time.
+     *
+     * @param percentile From 0.0 to 100.0.
+     *
+     * @return The time, in nanoseconds, or 0 if nothing's been recorded.
+     */
+    public long getTimeAtPercentile(double percentile) {
+	if (totalCount == 0) {
+	    return 0;
+	}
+	long countAtPercentile = (long)Math.ceil((percentile / 100.0) * totalCount);
+	countAtPercentile = Math.max(1, Math.min(totalCount, countAtPercentile));
+	long count = 0;
+	for (int i = 0; i < counts.length; i++) {
+	    count += counts[i];
+	    if (count >= countAtPercentile) {
+		// NEVER REPORT MORE THAN WE ACTUALLY SAW
+		return Math.min(getBucketTopTime(i), maxTime);
+	    }
+	}
+	return maxTime;
+    }
+
+    /**
+     * Forgets all the recorded times.
+     */
+    public void reset() {
+	for (int i = 0; i < counts.length; i++) {
+	    counts[i] = 0;
+	}
+	totalCount = 0;
+	totalTime = 0;
+	minTime = Long.MAX_VALUE;
+	maxTime = 0;
+    }
+
+    // HELPER METHOD FOR FINDING THE BUCKET A TIME GOES IN. TIMES UNDER
+    // SUB_BUCKET_COUNT EACH GET THEIR OWN BUCKET, AFTER WHICH EACH POWER
+    // OF 2 GETS SUB_BUCKET_COUNT / 2 BUCKETS OF ITS OWN
+    private int getBucketIndex(long time) {
+	if (time < SUB_BUCKET_COUNT) {
+	    return (int)time;
+	}
+	int magnitude = 63 - Long.numberOfLeadingZeros(time);
+	if (magnitude > MAX_MAGNITUDE) {
+	    return counts.length - 1;
+	}
+	int shift = magnitude - SUB_BUCKET_BITS + 1;
+	int subBucket = (int)(time >>> shift);
+	return (shift * (SUB_BUCKET_COUNT / 2)) + subBucket;
+    }
+
+    // HELPER METHOD FOR FINDING THE LONGEST TIME THAT GOES IN A BUCKET
+    private long getBucketTopTime(int index) {
+	if (index == (counts.length - 1)) {
+	    return Long.MAX_VALUE;
+	}
+	if (index < SUB_BUCKET_COUNT) {
+	    return index;
+	}
+	int shift = (index / (SUB_BUCKET_COUNT / 2)) - 1;
+	int subBucket = index - (shift * (SUB_BUCKET_COUNT / 2));
+	return (((long)subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,137 @@
+package pacg;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class is a fixed size queue of commands for the game. Any thread may
+ * post commands to it, but only one thread, the one running the game's
+ * frames, takes them off and runs them. That way all changes to the game data
+ * happen on that one thread, between frames, and nobody needs to lock the data.
+ *
+ * Note that the queue is a ring buffer where each slot has a sequence number
+ * saying whose turn it is to use the slot. A poster claims the next slot by
+ * moving the tail along and then publishes its command by bumping the slot's
+ * sequence, so posters never wait on each other for long and the frame thread
+ * never waits at all.
+ *
+ * @author McKillaGorilla
+ */
+public class GameCommandQueue {
+    // THE DEFAULT NUMBER OF COMMANDS THAT MAY BE WAITING AT ONCE
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // THE COMMANDS AND THE SEQUENCE NUMBER OF EACH SLOT
+    private AtomicReferenceArray<Runnable> commands;
+    private AtomicLongArray sequences;
+    private int mask;
+
+    // WHERE THE NEXT COMMAND WILL BE POSTED, SHARED BY ALL POSTERS
+    private AtomicLong tail;
+
+    // WHERE THE NEXT COMMAND WILL BE TAKEN FROM, ONLY
+    // EVER USED BY THE THREAD RUNNING THE COMMANDS
+    private long head;
+
+    /**
+     * Constructor for an empty queue.
+     *
+     * @param initCapacity The most commands that may be waiting at once, which
+     * is rounded up to a power of 2.
+     */
+    public GameCommandQueue(int initCapacity) {
+	int capacity = Integer.highestOneBit(Math.max(initCapacity, 2) - 1) << 1;
+	commands = new AtomicReferenceArray(capacity);
+	sequences = new AtomicLongArray(capacity);
+	for (int i = 0; i < capacity; i++) {
+	    sequences.set(i, i);
+	}
+	mask = capacity - 1;
+	tail = new AtomicLong(0);
+	head = 0;
+    }
+
+    public int getCapacity() {
+	return mask + 1;
+    }
+
+    /**
+     * Posts command to the back of the queue. This may be called from any
+     * thread.
+     *
+     * @param command The command to run.
+     *
+     * @return true if it was posted, false if the queue is full.
+     */
+    public boolean offer(Runnable command) {
+	while (true) {
+	    long position = tail.get();
+	    int slot = (int)(position & mask);
+	    long difference = sequences.get(slot) - position;
+	    if (difference == 0) {
+		// THE SLOT IS FREE, TRY TO CLAIM IT
+		if (tail.compareAndSet(position, position + 1)) {
+		    commands.set(slot, command);
+		    sequences.lazySet(slot, position + 1);
+		    return true;
+		}
+	    }
+	    else if (difference < 0) {
+		// THE SLOT STILL HAS A COMMAND FROM
+		// LAST TIME AROUND, SO WE'RE FULL
+		return false;
+	    }
+	    // OTHERWISE SOMEBODY ELSE CLAIMED IT FIRST, SO TRY THE NEXT ONE
+	}
+    }
+
+    /**
+     * Takes the command at the front of the queue. This must only be called
+     * by the thread running the commands.
+     *
+     * @return The command, or null if there are none waiting.
+     */
+    public Runnable poll() {
+	int slot = (int)(head & mask);
+	if (sequences.get(slot) != (head + 1)) {
+	    // NOTHING HAS BEEN PUBLISHED HERE YET
+	    return null;
+	}
+	Runnable command = commands.get(slot);
+	commands.set(slot, null);
+
+	// FREE THE SLOT FOR ITS NEXT TIME AROUND THE RING
+	sequences.lazySet(slot, head + mask + 1);
+	head++;
+	return command;
+    }
+
+    /**
+     * Runs all the commands that are waiting, in the order they were posted.
+     * Commands posted while this is running wait for the next drain, so a
+     * command that posts another can't keep us here forever. A command that
+     * throws an exception is reported and skipped. This must only be called
+     * by the thread running the commands.
+     *
+     * @return The number of commands that were run.
+     */
+    public int drain() {
+	long end = tail.get();
+	int numCommands = 0;
+	while (head < end) {
+	    Runnable command = poll();
+	    if (command == null) {
+		// IT'S BEEN CLAIMED BUT NOT POSTED YET
+		break;
+	    }
+	    try {
+		command.run();
+	    } catch (RuntimeException e) {
+		e.printStackTrace();
+	    }
+	    numCommands++;
+	}
+	return numCommands;
+    }
+}
@@ -1,7 +1,7 @@
 package pacg;
 
 import java.util.TreeMap;
-import java.util.concurrent.locks.ReentrantLock;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.image.Image;
@@ -12,6 +12,8 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 /**
@@ -19,9 +21,9 @@ import javafx.stage.Stage;
  * framework for making a point and click JavaFX game. This class serves as 
  * the focal point of that game, with access to all the important game data and 
  * controls. Note that it uses a custom JavaFX AnimationTimer to provide 
- * regular updates of the game data and rendering, so it also uses a 
- * ReentrantLock to make sure another thread doesn't try to change
- * data mid-render.
+ * regular updates of the game data and rendering, so anything that wants to
+ * change the data from somewhere else posts a command, which the timer runs
+ * at the start of its next frame, rather than changing it mid-render.
  *
  * @author Richard McKenna
  * @version 1.0
@@ -35,15 +37,12 @@ public abstract class PointAndClickGame {
     // BE CUSTOMIZED FOR THE GIVEN GAME
     protected PointAndClickGameDataModel data;
 
-    // THERE WILL BE 2 THREADS AT WORK IN THIS APPLICATION,
-    // THE MAIN GUI THREAD, WHICH WILL LISTEN FOR USER INTERACTION
-    // AND CALL OUR EVENT HANDLERS, AND THE TIMER THREAD, WHICH 
-    // WILL UPDATE ALL THE GAME DATA, WHICH WILL FORCE RENDERING.
-    // THIS LOCK WILL MAKE SURE THAT ONE THREAD DOESN'T RUIN WHAT 
-    // THE OTHER IS DOING (CALLED A RACE CONDITION). EACH THREAD WILL 
-    // NEED TO LOCK THE DATA USING THIS OBJECT BEFORE EACH USE AND 
-    // THEN UNLOCK WHEN DONE WITH IT.
-    protected ReentrantLock dataLock;
+    // THE TIMER UPDATES ALL THE GAME DATA ON THE JavaFX APPLICATION
+    // THREAD, BUT EVENT HANDLERS AND BACKGROUND THREADS MAY ALSO WANT
+    // TO CHANGE IT. RATHER THAN LOCKING THE DATA EVERY FRAME, THEY POST
+    // COMMANDS HERE AND THE TIMER RUNS THEM ALL BEFORE EACH FRAME, SO
+    // ONLY ONE THREAD EVER CHANGES THE DATA
+    protected GameCommandQueue commands;
     
     // THIS IS THE GAME WINDOW
     protected Stage window;
@@ -81,6 +80,16 @@ public abstract class PointAndClickGame {
     // THIS RESPONDS TO KEY PRESSES
     protected PointAndClickGameKeyController keyController;
 
+    // THIS TIMES EACH PHASE OF EACH FRAME
+    protected FrameProfiler profiler;
+
+    // THE DEBUG TEXT, INCLUDING THE FRAME TIMES, IS SHOWN IN THIS
+    // LAYER ON TOP OF ALL THE OTHERS, BUT ONLY A FEW TIMES A SECOND
+    public static final long DEBUG_TEXT_REFRESH_MILLIS = 250;
+    private Pane debugLayer;
+    private Text debugTextNode;
+    private long lastDebugTextRefresh;
+
     /**
      * This constructor sets up everything, including the GUI and the game data,
      * and starts the timer, which will force state updates and rendering. Note
@@ -103,10 +112,11 @@ public abstract class PointAndClickGame {
 	// CALCULATE THE TIME EACH FRAME SHOULD TAKE
 	frameDuration = 1000 / framesPerSecond;
 
-	// CONSTRUCT OUR LOCK, WHICH WILL MAKE SURE
+	// CONSTRUCT OUR COMMAND QUEUE, WHICH WILL MAKE SURE
 	// WE ARE NOT UPDATING THE GAME DATA SIMULATEOUSLY
 	// IN TWO DIFFERENT THREADS
-	dataLock = new ReentrantLock();
+	commands = new GameCommandQueue(GameCommandQueue.DEFAULT_CAPACITY);
+	profiler = new FrameProfiler();
 
 	// AND NOW SETUP THE FULL APP. NOTE THAT SOME
 	// OF THESE METHODS MUST BE CUSTOMLY PROVIDED FOR
@@ -185,6 +195,15 @@ public abstract class PointAndClickGame {
 	return framesPerSecond;
     }
 
+    /**
+     * For accessing the timings of each phase of each frame.
+     *
+     * @return the profiler timing this game's frames.
+     */
+    public FrameProfiler getProfiler() {
+	return profiler;
+    }
+
     /**
      * For accessing the game GUI images.
      *
@@ -281,6 +300,18 @@ public abstract class PointAndClickGame {
 	// USING THIS FRAMEWORK
 	initGUIControls();
 
+	// THE DEBUG TEXT GOES ON TOP OF EVERYTHING
+	debugTextNode = new Text();
+	debugTextNode.setFont(Font.font("Monospaced", 14));
+	debugTextNode.setFill(Color.YELLOW);
+	debugTextNode.setX(data.getDebugTextX());
+	debugTextNode.setY(data.getDebugTextY());
+	debugLayer = new Pane();
+	debugLayer.setMouseTransparent(true);
+	debugLayer.getChildren().add(debugTextNode);
+	debugLayer.setVisible(false);
+	addStackPaneLayer(debugLayer);
+
 	// ULTIMATELY, EVERYTHING SHOULD BE INSIDE THE CANVAS
 	scene = new Scene(stackPane, data.getGameWidth(), data.getGameHeight());
 	window.setScene(scene);
@@ -321,29 +352,44 @@ public abstract class PointAndClickGame {
     // THIS FRAMEWORK NEED NOT EVEN KNOW ABOUT THESE METHODS,
     // JUST HOW TO PLUG INTO THEM THE SAME WAY YOU DON'T KNOW
     // ABOUT ALL THE INTERNAL WORKINGS OF SWING
-    // beginUsingData
-    // endUsingData
+    // postCommand
+    // processCommands
     // killApplication
     // processButtonPress
     // startGame
     // update
+    // tick
+    // render
     
     /**
-     * This method locks access to the game data for the thread that invokes
-     * this method. All other threads will be locked out upon their own call to
-     * this method and will be forced to wait until this thread ends its use.
+     * This method posts command to be run on the JavaFX application thread
+     * at the start of the next frame, before the game data is updated. It may
+     * be called from any thread. Note that if the queue is full, a poster on
+     * the JavaFX application thread runs what's waiting itself to make room,
+     * while any other poster waits for the next frame to do so.
+     *
+     * @param command The change to make to the game data.
      */
-    public void beginUsingData() {
-	dataLock.lock();
+    public void postCommand(Runnable command) {
+	while (!commands.offer(command)) {
+	    if (Platform.isFxApplicationThread()) {
+		commands.drain();
+	    }
+	    else {
+		Thread.yield();
+	    }
+	}
     }
 
     /**
-     * This method frees access to the game data for the thread that invokes
-     * this method. This will result in notifying any waiting thread that it may
-     * proceed.
+     * This method runs all the commands that have been posted, in the order
+     * they were posted. It is called by the timer at the start of each frame,
+     * and so must only be called on the JavaFX application thread.
+     *
+     * @return The number of commands that were run.
      */
-    public void endUsingData() {
-	dataLock.unlock();
+    public int processCommands() {
+	return commands.drain();
     }
 
     /**
@@ -365,20 +411,84 @@ public abstract class PointAndClickGame {
     }
 
     /**
-     * This method is called once per frame and updates and renders everything
-     * in the game including the gui.
+     * This method is called once per frame when not running with a fixed
+     * timestep and updates and renders everything in the game including
+     * the gui.
      */
     public void update(double percentage) {
+	tick(percentage);
+	render(1.0);
+    }
+
+    /**
+     * This method is called for each tick of game time and updates the game
+     * data, but doesn't render anything.
+     *
+     * @param percentage The percentage of a frame this tick represents.
+     */
+    public void tick(double percentage) {
 	// WE ONLY PERFORM GAME LOGIC
 	// IF THE GAME IS UNDERWAY
+	if (data.inProgress() && !data.isPaused()) {
+	    profiler.startPhase(FrameProfiler.UPDATE_PHASE);
+	    data.updateAll(this, percentage);
+	    profiler.endPhase(FrameProfiler.UPDATE_PHASE);
+	}
+    }
+
+    /**
+     * This method is called once per frame, after all of the frame's ticks,
+     * and renders everything in the game including the gui.
+     *
+     * @param alpha How far we are between the last tick and the next, from
+     * 0.0, right at the last tick, to 1.0, right at the next.
+     */
+    public void render(double alpha) {
+	profiler.startPhase(FrameProfiler.GUI_PHASE);
 	if (data.inProgress()) {
 	    data.updateDebugText(this);
-	    if (!data.isPaused()) {
-		data.updateAll(this, percentage);
-	    }
+	    data.render(this, alpha);
 	}
+
 	// WE ALWAYS HAVE TO WORRY ABOUT UPDATING THE GUI
 	updateGUI();
+	renderDebugText();
+	profiler.endPhase(FrameProfiler.GUI_PHASE);
+
+	// AND NOW THAT EVERYTHING FOR THIS FRAME HAS BEEN DECIDED,
+	// DRAW ALL THE CHANGES THAT WERE BATCHED UP DURING IT
+	profiler.startPhase(FrameProfiler.FLUSH_PHASE);
+	data.flushChanges(this);
+	profiler.endPhase(FrameProfiler.FLUSH_PHASE);
+    }
+
+    // HELPER METHOD FOR SHOWING THE DEBUG TEXT AND THE FRAME TIMES WHILE
+    // DEBUG TEXT RENDERING IS ACTIVE. NOTE THAT BUILDING ALL THAT TEXT
+    // ISN'T FREE, SO IT'S ONLY DONE A FEW TIMES A SECOND
+    private void renderDebugText() {
+	if (!data.isDebugTextRenderingActive()) {
+	    debugLayer.setVisible(false);
+	    return;
+	}
+	long now = System.currentTimeMillis();
+	if (debugLayer.isVisible() && ((now - lastDebugTextRefresh) < DEBUG_TEXT_REFRESH_MILLIS)) {
+	    return;
+	}
+	lastDebugTextRefresh = now;
+	StringBuilder text = new StringBuilder();
+	for (String line : data.getDebugText()) {
+	    text.append(line).append("\n");
+	}
+	for (String line : profiler.getSummary()) {
+	    text.append(line).append("\n");
+	}
+	debugTextNode.setText(text.toString());
+
+	// OTHER LAYERS MAY HAVE BEEN ADDED SINCE, SO MAKE SURE WE'RE ON TOP
+	if (!debugLayer.isVisible()) {
+	    debugLayer.toFront();
+	    debugLayer.setVisible(true);
+	}
     }
 
     // ABSTRACT METHODS - GAME-SPECIFIC IMPLEMENTATIONS REQUIRED
@@ -259,6 +259,31 @@ public abstract class PointAndClickGameDataModel {
 	paused = false;
     }
 
+    /**
+     * Called once at the end of each frame, after all the updating is done,
+     * this method is for drawing any rendering changes that were batched up
+     * during the frame rather than drawn immediately. By default there are
+     * none, so a custom game need only override this if it batches changes.
+     *
+     * @param game the game in progress
+     */
+    public void flushChanges(PointAndClickGame game) {
+    }
+
+    /**
+     * Called once per frame, after all the frame's ticks, this method is for
+     * moving things on screen to where they are between the last tick and the
+     * next. By default there is nothing to move, so a custom game need only
+     * override this if it draws things in between ticks.
+     *
+     * @param game the game in progress
+     *
+     * @param alpha How far we are between the last tick and the next, from
+     * 0.0 to 1.0.
+     */
+    public void render(PointAndClickGame game, double alpha) {
+    }
+
     // ABSTRACT METHODS - GAME-SPECIFIC IMPLEMENTATIONS REQUIRED
     // reset
     // updateAll
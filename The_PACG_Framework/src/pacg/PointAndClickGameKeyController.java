@@ -1,11 +1,13 @@
 package pacg;
 
+import java.io.File;
+import java.io.IOException;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 
 /**
  * This class provides some basic responses to key presses, including
- * togging the debugging rendering and pausing. In addition, the hook
+ * togging the debugging rendering, pausing and saving the frame times. In addition, the hook
  * function allows for a descendant class to hook into key presses
  * with custom responses.
  *
@@ -61,6 +63,15 @@ public class PointAndClickGameKeyController {
 	    else {
 		game.getDataModel().pause();
 	    }
+	} // THE 'T' KEY WRITES THE FRAME TIMES TO A FILE
+	else if (ke.getCode() == KeyCode.T) {
+	    File dumpFile = new File(FrameProfiler.DEFAULT_DUMP_FILE_PATH);
+	    try {
+		game.getProfiler().dump(dumpFile);
+		System.out.println("frame times written to " + dumpFile.getAbsolutePath());
+	    } catch (IOException e) {
+		System.out.println("frame times could not be written to " + dumpFile.getAbsolutePath());
+	    }
 	}
 	
 	// CALL THE HOOK FUNCTION
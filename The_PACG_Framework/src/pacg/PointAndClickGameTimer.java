@@ -6,6 +6,14 @@ import javafx.animation.AnimationTimer;
  * This simple class serves as the task executed each frame for updating, and
  * then rendering the game.
  *
+ * By default it runs the game with a fixed timestep, meaning the game data is
+ * always updated in ticks of the same length, as many as the time since the
+ * last frame calls for, and then the frame is rendered. The time left over
+ * that didn't add up to a whole tick is passed along to rendering as how far
+ * we are between the last tick and the next, so that moving things can be
+ * drawn between the two. Alternatively, it can update once per frame by
+ * however long the frame took, which is how the framework originally worked.
+ *
  * @author Richard McKenna
  * @version 1.0
  */
@@ -13,55 +21,130 @@ public class PointAndClickGameTimer extends AnimationTimer {
 
     // WE'LL UPDATE THIS game OBJECT EACH FRAME
     protected PointAndClickGame game;
-    
+
     // THE TARGET FRAME RATE
-    protected long targetFPS = 50;
-    
+    protected long targetFPS;
+
     // THE TIME OF THE LAST FRAME
     protected long lastTime = 0;
-    
+
     // JavaFX HAS A HIGH RESOLUTION TIMER
     protected long TIMER_RESOLUTION = 1000000;
+    protected long NANOS_PER_SECOND = 1000 * TIMER_RESOLUTION;
+
+    // THE DEFAULT MOST TICKS WE'LL RUN IN ONE FRAME TO CATCH UP
+    public static final int DEFAULT_MAX_TICKS_PER_FRAME = 5;
+
+    // FOR RUNNING WITH A FIXED TIMESTEP
+    protected boolean fixedTimestep = true;
+    protected long ticksPerSecond;
+    protected int maxTicksPerFrame = DEFAULT_MAX_TICKS_PER_FRAME;
+
+    // THE TIME THAT HAS PASSED BUT HASN'T BEEN TICKED YET
+    protected long accumulatedTime = 0;
 
     /**
      * Constructor for initializing the task, it simply stores away the game to
-     * use in its updates.
+     * use in its updates. Both the target frame rate and the tick rate start
+     * off as the game's frame rate.
      *
      * @param initGame the game to be updated and rendered each frame.
      */
     public PointAndClickGameTimer(PointAndClickGame initGame) {
 	// STORE FOR LATER
 	game = initGame;
+	targetFPS = game.getFrameRate();
+	ticksPerSecond = targetFPS;
+    }
+
+    // ACCESSOR AND MUTATOR METHODS
+
+    public boolean isFixedTimestep() {
+	return fixedTimestep;
+    }
+
+    public long getTicksPerSecond() {
+	return ticksPerSecond;
+    }
+
+    public int getMaxTicksPerFrame() {
+	return maxTicksPerFrame;
+    }
+
+    public void setFixedTimestep(boolean initFixedTimestep) {
+	fixedTimestep = initFixedTimestep;
+	accumulatedTime = 0;
+    }
+
+    public void setTicksPerSecond(long initTicksPerSecond) {
+	ticksPerSecond = initTicksPerSecond;
+	accumulatedTime = 0;
+    }
+
+    public void setMaxTicksPerFrame(int initMaxTicksPerFrame) {
+	maxTicksPerFrame = initMaxTicksPerFrame;
     }
 
     /**
      * Called 30 times per second, or whatever the current frame rate is, this
-     * method updates the game and renders it, making sure to get a lock on the
-     * data before doing so and releasing the data when done.
+     * method updates the game and renders it, first running any commands that
+     * were posted since the last frame, since they may change the data.
      */
     @Override
     public void handle(long now) {
-	try {
-	    // LOCK THE DATA
-	    game.beginUsingData();
-
-	    // CALCULATE THE PERCENTAGE OF THE TARGET FPS
-	    // THAT THE LAST FRAME TOOK
-	    double percentage = 0.0;
-	    if (lastTime != 0)
-		percentage = ((double)(now - lastTime))/(targetFPS * TIMER_RESOLUTION);
-	    
-	    // RECORD THIS FOR THE NEXT FRAME
-	    lastTime = now;
-	    
+	FrameProfiler profiler = game.getProfiler();
+	profiler.startPhase(FrameProfiler.FRAME_PHASE);
+
+	// RUN WHATEVER CHANGES WERE POSTED IN RESPONSE
+	// TO INPUT OR BY OTHER THREADS SINCE LAST FRAME
+	profiler.startPhase(FrameProfiler.INPUT_PHASE);
+	game.processCommands();
+	profiler.endPhase(FrameProfiler.INPUT_PHASE);
+
+	// HOW LONG DID THE LAST FRAME TAKE?
+	long elapsedTime = 0;
+	if (lastTime != 0)
+	    elapsedTime = now - lastTime;
+
+	// RECORD THIS FOR THE NEXT FRAME
+	lastTime = now;
+
+	if (fixedTimestep) {
+	    handleFixedTimestep(elapsedTime);
+	}
+	else {
+	    // CALCULATE THE PERCENTAGE OF A TARGET
+	    // FRAME THAT THE LAST FRAME TOOK
+	    double percentage = ((double)elapsedTime)/(NANOS_PER_SECOND/targetFPS);
+
 	    // UPDATE THE GAME
 	    game.update(percentage);
-	    
-	} finally {
-	    // RELEASE IT, SINCE THE OTHER THREAD
-	    // MIGHT WANT TO UPDATE STUFF IN RESPONSE
-	    // TO A MOUSE CLICK
-	    game.endUsingData();
 	}
+	profiler.endPhase(FrameProfiler.FRAME_PHASE);
+    }
+
+    // HELPER METHOD FOR RUNNING AS MANY TICKS AS elapsedTime CALLS FOR AND
+    // THEN RENDERING, NOTE THAT IF WE FALL SO FAR BEHIND THAT WE'D NEED MORE
+    // THAN maxTicksPerFrame TICKS TO CATCH UP, THE REST OF THE TIME IS DROPPED
+    // SO THAT A LONG HITCH CAN'T MAKE EVERY FRAME AFTER IT LONGER STILL
+    private void handleFixedTimestep(long elapsedTime) {
+	long tickTime = NANOS_PER_SECOND / ticksPerSecond;
+
+	// EACH TICK IS THIS PERCENTAGE OF A TARGET FRAME
+	double tickPercentage = ((double)tickTime)/(NANOS_PER_SECOND/targetFPS);
+
+	accumulatedTime += elapsedTime;
+	int ticks = 0;
+	while ((accumulatedTime >= tickTime) && (ticks < maxTicksPerFrame)) {
+	    game.tick(tickPercentage);
+	    accumulatedTime -= tickTime;
+	    ticks++;
+	}
+	if (accumulatedTime >= tickTime) {
+	    accumulatedTime %= tickTime;
+	}
+
+	// AND DRAW THINGS WHERE THEY ARE BETWEEN THE LAST TICK AND THE NEXT
+	game.render(((double)accumulatedTime)/tickTime);
     }
 }
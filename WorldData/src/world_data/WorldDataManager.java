@@ -142,6 +142,17 @@ public class WorldDataManager
         return (allRegions.containsKey(testRegion.getName()));
     }
 
+    /**
+     * Accessor method for getting the file reader/writer, which is useful
+     * for loading a file into a separate, temporary world.
+     * 
+     * @return The XML region file reader/writer object.
+     */
+    public WorldImporterExporter getWorldImporterExporter()
+    {
+        return worldImporterExporter;
+    }
+
     // MUTATOR METHODS
     
     /**
@@ -0,0 +1,291 @@
+package world_io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import world_data.Region;
+import world_data.RegionType;
+import world_data.WorldDataManager;
+
+/**
+ * This class reads and writes a whole world as a single binary snapshot,
+ * which can be read back in one go, without any XML parsing or schema
+ * validation. It's meant for restoring a world that was already loaded
+ * from the XML files, not for replacing them.
+ *
+ * A snapshot is laid out as follows, with everything big-endian:
+ *
+ *   int    MAGIC, which is "RVWD"
+ *   int    VERSION
+ *   int    the number of strings, followed by each one in modified UTF-8.
+ *          Every name, capital and leader is in here once, no matter how
+ *          many regions use it
+ *   int    the number of regions, followed by each one as
+ *          int   its name, as an index into the strings
+ *          int   its capital, as an index into the strings, or NONE
+ *          int   its leader, as an index into the strings, or NONE
+ *          int   its parent, as an index into the regions, or NONE. A
+ *                parent always comes before its sub regions
+ *          int   its color, packed as 0xRRGGBB
+ *          byte  its type's ordinal, or NONE
+ *
+ * @author  Richard McKenna
+ *          Debugging Enterprises
+ * @version 1.0
+ */
+public class WorldSnapshot
+{
+    // FOR RECOGNIZING A SNAPSHOT, "RVWD"
+    public static final int MAGIC = 0x52565744;
+
+    // THIS MUST GO UP WHENEVER THE LAYOUT CHANGES
+    public static final int VERSION = 1;
+
+    // FOR A MISSING STRING, PARENT OR TYPE
+    public static final int NONE = -1;
+
+    private static RegionType[] regionTypes = RegionType.values();
+
+    /**
+     * Tests to see if a file is a snapshot, which only reads its first
+     * few bytes.
+     *
+     * @param file The file to test.
+     *
+     * @return true if the file starts like a snapshot, false otherwise.
+     */
+    public static boolean isSnapshot(File file)
+    {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file)))
+        {
+            return in.readInt() == MAGIC;
+        }
+        catch(IOException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Writes every region in worldToSave to snapshotFile, along with all
+     * of their ancestors and descendants. The snapshot is written to a
+     * temporary file first, which then replaces snapshotFile, so a failed
+     * save never leaves a half written snapshot behind.
+     *
+     * @param snapshotFile The file to write the snapshot to.
+     *
+     * @param worldToSave The world to save.
+     *
+     * @throws IOException If the snapshot couldn't be written.
+     */
+    public static void save(File snapshotFile, WorldDataManager worldToSave)
+            throws IOException
+    {
+        // FIRST PUT THE REGIONS IN ORDER, PARENTS FIRST
+        ArrayList<Region> regions = new ArrayList();
+        IdentityHashMap<Region, Integer> regionIndices = new IdentityHashMap();
+        LinkedHashSet<Region> roots = new LinkedHashSet();
+        for (Region region : worldToSave.getAllRegions().values())
+        {
+            while (region.getParentRegion() != null)
+            {
+                region = region.getParentRegion();
+            }
+            roots.add(region);
+        }
+        for (Region root : roots)
+        {
+            addInOrder(root, regions, regionIndices);
+        }
+
+        // THEN MAKE THE STRING TABLE
+        ArrayList<String> strings = new ArrayList();
+        HashMap<String, Integer> stringIndices = new HashMap();
+        for (Region region : regions)
+        {
+            addString(region.getName(), strings, stringIndices);
+            addString(region.getCapital(), strings, stringIndices);
+            addString(region.getLeader(), strings, stringIndices);
+        }
+
+        // AND NOW WRITE IT ALL OUT
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            for (String string : strings)
+            {
+                out.writeUTF(string);
+            }
+            out.writeInt(regions.size());
+            for (Region region : regions)
+            {
+                Region parent = region.getParentRegion();
+                out.writeInt(stringIndices.get(region.getName()));
+                out.writeInt(getStringIndex(region.getCapital(), stringIndices));
+                out.writeInt(getStringIndex(region.getLeader(), stringIndices));
+                out.writeInt((parent == null) ? NONE : regionIndices.get(parent));
+                out.writeInt(packColor(region));
+                out.writeByte((region.getType() == null) ? NONE : region.getType().ordinal());
+            }
+        }
+        Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads all the regions in snapshotFile into worldToLoad, hooking each
+     * one up to its parent. Any region already in the world with the same
+     * name as one in the snapshot is replaced by it.
+     *
+     * @param snapshotFile The snapshot to read.
+     *
+     * @param worldToLoad The world to add the regions to.
+     *
+     * @throws IOException If the file couldn't be read, or isn't a
+     * snapshot this version knows how to read.
+     */
+    public static void load(File snapshotFile, WorldDataManager worldToLoad)
+            throws IOException
+    {
+        // READ IT ALL IN ONE GO, THEN WORK FROM MEMORY
+        byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes)))
+        {
+            if (in.readInt() != MAGIC)
+            {
+                throw new IOException(snapshotFile.getPath() + " is not a world snapshot");
+            }
+            int version = in.readInt();
+            if (version != VERSION)
+            {
+                throw new IOException(snapshotFile.getPath() + " is version " + version + " of the world snapshot format");
+            }
+            String[] strings = new String[readCount(in, bytes)];
+            for (int i = 0; i < strings.length; i++)
+            {
+                strings[i] = in.readUTF();
+            }
+
+            // MAKE ALL THE REGIONS FIRST, SO A BAD FILE CAN'T LEAVE THE
+            // WORLD HALF LOADED
+            Region[] regions = new Region[readCount(in, bytes)];
+            int[] parents = new int[regions.length];
+            for (int i = 0; i < regions.length; i++)
+            {
+                String name = getString(strings, in.readInt());
+                String capital = getString(strings, in.readInt());
+                String leader = getString(strings, in.readInt());
+                parents[i] = in.readInt();
+                int color = in.readInt();
+                int type = in.readByte();
+                if ((name == null) || (parents[i] < NONE) || (parents[i] >= i)
+                        || (type < NONE) || (type >= regionTypes.length))
+                {
+                    throw new IOException(snapshotFile.getPath() + " is damaged");
+                }
+                regions[i] = new Region((short)((color >> 16) & 0xFF),
+                                        (short)((color >> 8) & 0xFF),
+                                        (short)(color & 0xFF),
+                                        leader, capital, name);
+                if (type != NONE)
+                {
+                    regions[i].setType(regionTypes[type]);
+                }
+            }
+
+            // AND THEN PUT THEM IN THE WORLD
+            for (int i = 0; i < regions.length; i++)
+            {
+                if (parents[i] == NONE)
+                {
+                    worldToLoad.addRegion(regions[i]);
+                    if (regions[i].getType() == RegionType.WORLD)
+                    {
+                        worldToLoad.setRoot(regions[i]);
+                    }
+                }
+                else
+                {
+                    worldToLoad.addRegion(regions[i], regions[parents[i]]);
+                }
+            }
+        }
+    }
+
+    // HELPER METHODS FOR SAVING
+
+    private static void addInOrder(Region region, ArrayList<Region> regions, IdentityHashMap<Region, Integer> regionIndices)
+    {
+        if (regionIndices.containsKey(region))
+        {
+            return;
+        }
+        regionIndices.put(region, regions.size());
+        regions.add(region);
+        for (Region subRegion : region.getSubRegionsAL())
+        {
+            addInOrder(subRegion, regions, regionIndices);
+        }
+    }
+
+    private static void addString(String string, ArrayList<String> strings, HashMap<String, Integer> stringIndices)
+    {
+        if ((string != null) && !stringIndices.containsKey(string))
+        {
+            stringIndices.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static int getStringIndex(String string, HashMap<String, Integer> stringIndices)
+    {
+        return (string == null) ? NONE : stringIndices.get(string);
+    }
+
+    private static int packColor(Region region)
+    {
+        return ((region.getRed() & 0xFF) << 16)
+                | ((region.getGreen() & 0xFF) << 8)
+                | (region.getBlue() & 0xFF);
+    }
+
+    // HELPER METHODS FOR LOADING
+
+    // A COUNT CAN'T BE MORE THAN THE NUMBER OF BYTES IN THE FILE, SO ONE
+    // THAT IS MUST BE DAMAGED, AND WE SHOULDN'T MAKE AN ARRAY THAT BIG
+    private static int readCount(DataInputStream in, byte[] bytes) throws IOException
+    {
+        int count = in.readInt();
+        if ((count < 0) || (count > bytes.length))
+        {
+            throw new IOException("world snapshot is damaged");
+        }
+        return count;
+    }
+
+    private static String getString(String[] strings, int index) throws IOException
+    {
+        if (index == NONE)
+        {
+            return null;
+        }
+        if ((index < 0) || (index >= strings.length))
+        {
+            throw new IOException("world snapshot is damaged");
+        }
+        return strings[index];
+    }
+}
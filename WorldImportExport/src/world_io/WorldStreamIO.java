@@ -0,0 +1,278 @@
+package world_io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import world_data.Region;
+import world_data.RegionType;
+import world_data.WorldDataManager;
+import world_data.WorldImporterExporter;
+import static world_io.WorldIOSettings.*;
+import xml_utilities.XMLUtilities;
+
+/**
+ * This class serves as a plugin for reading regions from the same XML files
+ * as WorldIO, but rather than building a DOM for the whole file it streams
+ * through it with StAX, making each sub_region element into a Region as it's
+ * read. This means loading a file takes the same small amount of memory no
+ * matter how many sub regions it has, beyond the Regions themselves. Files
+ * are validated against the schema in the same pass, since it's the
+ * validator that pulls the reader through the file, and the regions are
+ * only put in the world once the whole file has turned out to be valid.
+ * Like WorldIO, it saves worlds as snapshots.
+ *
+ * @author  Richard McKenna
+ *          Debugging Enterprises
+ * @version 1.0
+ */
+public class WorldStreamIO implements WorldImporterExporter
+{
+    // THIS WILL HELP US VALIDATE THE XML FILES
+    private XMLUtilities xmlUtil;
+
+    // THIS IS THE SCHEMA WE'LL USE
+    private File worldSchema;
+
+    // THIS MAKES THE READERS, AND IS MADE ONCE SINCE FINDING AND
+    // CONFIGURING IT ISN'T FREE
+    private XMLInputFactory inputFactory;
+
+    private RegionType[] regionTypes = RegionType.values();
+
+    /**
+     * Constructor for making our importer/exporter. Note that it
+     * initializes the XML utility for validating XML files, sets up
+     * the schema for use and makes the StAX factory.
+     *
+     * @param initWorldSchema The schema to validate files against.
+     */
+    public WorldStreamIO(File initWorldSchema)
+    {
+        xmlUtil = new XMLUtilities();
+
+        // WE'LL USE THE SCHEMA FILE TO VALIDATE THE XML FILES
+        worldSchema = initWorldSchema;
+
+        // OUR FILES HAVE NO DTDS, SO DON'T GO LOOKING FOR ANY
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Reads the geographic data found in regionsFile into worldToLoad.
+     * Just as with WorldIO, the file's region must either be the world,
+     * which must not have been loaded yet, or a region that's already
+     * in worldToLoad along with its parent, which is how its type is
+     * worked out. Note that regionsFile may also be a snapshot made by
+     * saveWorld, in which case the whole snapshot is loaded.
+     *
+     * @param regionsFile The XML file to load the data from.
+     *
+     * @param worldToLoad The world to fill with the data from the
+     * XML file.
+     *
+     * @return true if the world loads successfully, false otherwise.
+     */
+    @Override
+    public boolean loadWorld(File regionsFile, WorldDataManager worldToLoad)
+    {
+        // SNAPSHOTS NEED NO PARSING OR VALIDATION
+        if (WorldSnapshot.isSnapshot(regionsFile))
+        {
+            try
+            {
+                WorldSnapshot.load(regionsFile, worldToLoad);
+                return true;
+            }
+            catch(IOException e)
+            {
+                return false;
+            }
+        }
+
+        // READ THE FILE ONCE, PICKING UP THE REGIONS WHILE IT'S VALIDATED,
+        // AND ONLY THEN PUT THEM IN THE WORLD
+        try (InputStream in = new BufferedInputStream(new FileInputStream(regionsFile)))
+        {
+            RegionCollector reader = new RegionCollector(inputFactory.createXMLStreamReader(in));
+            try
+            {
+                if (!xmlUtil.validateXMLStream(reader, worldSchema.getAbsolutePath()))
+                {
+                    return false;
+                }
+                return addRegions(reader, worldToLoad);
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch(Exception e)
+        {
+            // WORLD DIDN'T LOAD PROPERLY
+            return false;
+        }
+    }
+
+    /**
+     * Private helper method for loading our world. It adds the region
+     * and then each of its sub regions in turn to the world.
+     *
+     * @param reader The reader, which has read the whole file.
+     *
+     * @param world The data manager for all the regions. We'll load
+     * the data from the reader into this object.
+     *
+     * @return true if the regions were loaded, false if the file's region
+     * can't be put in the world.
+     */
+    private boolean addRegions(RegionCollector reader, WorldDataManager world)
+    {
+        // THE WORLD IS NEW, ANY OTHER REGION MUST ALREADY BE THERE
+        String rootName = reader.rootName;
+        if (rootName == null)
+        {
+            return false;
+        }
+        Region rootRegion = world.getAllRegions().get(rootName);
+        RegionType regionType;
+        if (rootRegion == null && rootName.equals("The World"))
+        {
+            rootRegion = new Region(rootName);
+            regionType = RegionType.WORLD;
+            world.addRegion(rootRegion);
+        }
+        else if (rootRegion == null || rootRegion.getParentRegion() == null)
+        {
+            return false;
+        }
+        else
+        {
+            RegionType parentType = rootRegion.getParentRegion().getType();
+            regionType = regionTypes[parentType.ordinal()+1];
+        }
+        rootRegion.setType(regionType);
+
+        for (Region regionToAdd : reader.subRegions)
+        {
+            if (regionType == RegionType.WORLD)
+                regionToAdd.setType(RegionType.CONTINENT);
+            else if (regionType == RegionType.CONTINENT)
+                regionToAdd.setType(RegionType.NATION);
+            else if (regionType == RegionType.NATION)
+                regionToAdd.setType(RegionType.PROVINCE);
+            world.addRegion(regionToAdd);
+            regionToAdd.setParentRegion(rootRegion);
+            rootRegion.addSubRegion(regionToAdd);
+        }
+        return true;
+    }
+
+    /**
+     * Private helper method that makes a Region from the attributes of
+     * the sub_region element the reader is on. Missing colors are 0 and
+     * missing names, capitals and leaders are empty, as with WorldIO.
+     *
+     * @param reader The reader, positioned at a sub_region element.
+     *
+     * @return The sub region.
+     */
+    private Region loadSubRegion(XMLStreamReader reader)
+    {
+        short red = 0;
+        short green = 0;
+        short blue = 0;
+        String capital = "";
+        String leader = "";
+        String name = "";
+        for (int i = 0; i < reader.getAttributeCount(); i++)
+        {
+            String attributeName = reader.getAttributeLocalName(i);
+            String value = reader.getAttributeValue(i);
+            if (attributeName.equals(RED_ATTRIBUTE))
+                red = Short.valueOf(value);
+            else if (attributeName.equals(GREEN_ATTRIBUTE))
+                green = Short.valueOf(value);
+            else if (attributeName.equals(BLUE_ATTRIBUTE))
+                blue = Short.valueOf(value);
+            else if (attributeName.equals(CAPITAL_ATTRIBUTE))
+                capital = value;
+            else if (attributeName.equals(LEADER_ATTRIBUTE))
+                leader = value;
+            else if (attributeName.equals(NAME_ATTRIBUTE))
+                name = value;
+        }
+        return new Region(red, green, blue, leader, capital, name);
+    }
+
+    /**
+     * This method saves worldToSave to worldFile as a binary snapshot, as
+     * described in WorldSnapshot, which is the same thing WorldIO saves.
+     * The XML files are only ever written by hand, so there's no need to
+     * write them here, and a snapshot keeps every region, not just one
+     * region and its sub regions.
+     *
+     * @param worldFile The file to write the world to.
+     *
+     * @param worldToSave The world to save.
+     *
+     * @return true if the file is successfully saved, false otherwise.
+     */
+    @Override
+    public boolean saveWorld(File worldFile, WorldDataManager worldToSave)
+    {
+        try
+        {
+            WorldSnapshot.save(worldFile, worldToSave);
+            return true;
+        }
+        catch(IOException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * This reader picks up the region and its sub regions from each
+     * element as the validator reads it.
+     */
+    private class RegionCollector extends StreamReaderDelegate
+    {
+        private String rootName;
+        private ArrayList<Region> subRegions = new ArrayList();
+
+        RegionCollector(XMLStreamReader reader)
+        {
+            super(reader);
+        }
+
+        @Override
+        public int next() throws XMLStreamException
+        {
+            int event = super.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+                String elementName = getLocalName();
+                if (elementName.equals(REGION_NODE))
+                {
+                    rootName = getAttributeValue(null, NAME_ATTRIBUTE);
+                }
+                else if (elementName.equals(SUB_REGION_NODE) && (rootName != null))
+                {
+                    subRegions.add(loadSubRegion(this));
+                }
+            }
+            return event;
+        }
+    }
+}
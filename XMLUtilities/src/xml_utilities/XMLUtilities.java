@@ -3,11 +3,15 @@ package xml_utilities;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipFile;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Source;
+import javax.xml.transform.stax.StAXSource;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
@@ -15,7 +19,9 @@ import javax.xml.validation.Validator;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 /**
  * This class provides general purpose utilities for the loading and
@@ -25,6 +31,11 @@ import org.xml.sax.SAXException;
  * need to be extended a bit, with some more similar functionality
  * added.
  * 
+ * Note that compiling a schema is expensive, so each one is compiled only
+ * once and then shared, and each thread keeps its own validator and
+ * document builder for each schema, since those can't be shared but can
+ * be reused.
+ * 
  * @author  Richard McKenna
  *          Debugging Enterprises
  * @version 1.0
@@ -34,6 +45,48 @@ public class XMLUtilities
     // THIS REFERENCES A STANDARD SCHEMA FORMAT. NOTE THIS IS NOT THE SCHEMA
     public static final String SCHEMA_STANDARD_SPEC_URL = "http://www.w3.org/2001/XMLSchema";     
 
+    // EVERY SCHEMA WE'VE COMPILED, BY ITS ABSOLUTE PATH
+    private static final ConcurrentHashMap<String, Schema> schemas = new ConcurrentHashMap();
+    
+    // EACH THREAD'S VALIDATORS AND DOCUMENT BUILDERS, BY SCHEMA PATH
+    private static final ThreadLocal<HashMap<String, Validator>> validators = 
+            new ThreadLocal<HashMap<String, Validator>>()
+            {
+                @Override
+                protected HashMap<String, Validator> initialValue()
+                {
+                    return new HashMap();
+                }
+            };
+    private static final ThreadLocal<HashMap<String, DocumentBuilder>> documentBuilders = 
+            new ThreadLocal<HashMap<String, DocumentBuilder>>()
+            {
+                @Override
+                protected HashMap<String, DocumentBuilder> initialValue()
+                {
+                    return new HashMap();
+                }
+            };
+    
+    // THE PARSER ONLY REPORTS VALIDATION ERRORS, SO THIS MAKES THEM FAIL THE PARSE
+    private static final ErrorHandler FAIL_ON_ERROR_HANDLER = new ErrorHandler()
+    {
+        @Override
+        public void warning(SAXParseException exception) {}
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException
+        {
+            throw exception;
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException
+        {
+            throw exception;
+        }
+    };
+
     /**
      * Default Constructor, no data needs to be initialized.
      */
@@ -58,23 +111,14 @@ public class XMLUtilities
     {
         try
         {
-            // 1. Lookup a factory for the W3C XML Schema language
-            SchemaFactory factory = 
-                    SchemaFactory.newInstance(SCHEMA_STANDARD_SPEC_URL);
-            
-            // 2. Compile the schema. 
-            // Here the schema is loaded from a java.io.File, but you could use 
-            // a java.net.URL or a javax.xml.transform.Source instead.
-            File schemaLocation = new File(xmlSchemaNameAndPath);
-            Schema schema = factory.newSchema(schemaLocation);
+            // 1. Get this thread's validator for the schema, which
+            // compiles the schema if it's never been used before
+            Validator validator = getValidator(xmlSchemaNameAndPath);
             
-            // 3. Get a validator from the schema.
-            Validator validator = schema.newValidator();
-            
-            // 4. Parse the document you want to check.
+            // 2. Parse the document you want to check.
             Source source = new StreamSource(xmlDocNameAndPath);
             
-            // 5. Check the document
+            // 3. Check the document
             validator.validate(source);
             return true;
         }
@@ -86,6 +130,36 @@ public class XMLUtilities
         }          
     }    
     
+    /**
+     * This method validates the document being read by xmlReader against
+     * the xmlSchemaNameAndPath schema, reading it all the way through. Note
+     * that it's the validator that moves the reader through the document,
+     * so a reader that also picks up what it needs from each event as it
+     * goes by can load the document in the same pass that validates it.
+     * Anything it picks up should only be used if the document is valid.
+     * 
+     * @param xmlReader Reader at the start of the XML doc to validate
+     * 
+     * @param xmlSchemaNameAndPath XML Schema to use in validation
+     * 
+     * @return true if the xml doc is valid, false if it is not.
+     */
+    public boolean validateXMLStream(   XMLStreamReader xmlReader,
+                                        String xmlSchemaNameAndPath)
+    {
+        try
+        {
+            Validator validator = getValidator(xmlSchemaNameAndPath);
+            validator.validate(new StAXSource(xmlReader));
+            return true;
+        }
+        // AS WITH validateXMLDoc, ANY OF THESE MEANS AN INVALID XML FILE
+        catch (SAXException | IOException e) 
+        {
+            return false;
+        }          
+    }    
+    
     /**
      * This method reads in the xmlFile, validates it against the
      * schemaFile, and if valid, loads it into a WhitespaceFreeXMLDoc
@@ -104,34 +178,107 @@ public class XMLUtilities
     public Document loadXMLDocument(String xmlFile, String xsdFile)
             throws InvalidXMLFileFormatException
     {
-        // FIRST VALIDATE
-        boolean isValid = validateXMLDoc(xmlFile, xsdFile);
-        if (!isValid)
-        {
-            throw new InvalidXMLFileFormatException(xmlFile, xsdFile);
-        }
-        
-        // THIS IS JAVA API STUFF
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         try
         {            
-            // FIRST RETRIEVE AND LOAD THE FILE INTO A TREE
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            Document xmlDoc = db.parse(xmlFile);
+            // LOAD THE FILE INTO A TREE, VALIDATING IT AS WE GO SO
+            // THAT THE FILE IS ONLY READ ONCE
+            DocumentBuilder db = getDocumentBuilder(xsdFile);
+            Document xmlDoc = db.parse(new File(xmlFile));
             xmlDoc.getDocumentElement().normalize();
            
             // LET'S RETURN THE DOC
             return xmlDoc;
         }
-        // THESE ARE XML-RELATED ERRORS THAT COULD HAPPEN DURING
-        // LOADING AND PARSING IF THE XML FILE IS NOT WELL FORMED
-        // OR IS NOW WHERE AND WHAT WE SAY IT IS
-        catch(ParserConfigurationException | SAXException | IOException pce)
+        // THE FILE IS NOT WELL FORMED OR DOESN'T MATCH THE SCHEMA, OR
+        // THE SCHEMA ITSELF IS BAD
+        catch(SAXException se)
+        {
+            throw new InvalidXMLFileFormatException(xmlFile, xsdFile);
+        }
+        // THE FILE IS NOW WHERE AND WHAT WE SAY IT IS
+        catch(ParserConfigurationException | IOException pce)
         {
             throw new InvalidXMLFileFormatException(xmlFile);
         }           
     }   
     
+    /**
+     * This method gets the compiled schema for the xsdFile, compiling
+     * it only the first time it's asked for. Schemas are thread safe,
+     * so all threads share them.
+     * 
+     * @param xsdFile Path and name of the schema file.
+     * 
+     * @return The compiled schema.
+     * 
+     * @throws SAXException Thrown if the schema can't be compiled.
+     */
+    public Schema getSchema(String xsdFile) throws SAXException
+    {
+        String schemaPath = new File(xsdFile).getAbsolutePath();
+        Schema schema = schemas.get(schemaPath);
+        if (schema == null)
+        {
+            // SCHEMA FACTORIES AREN'T THREAD SAFE, SO EACH COMPILE GETS ITS
+            // OWN. IF TWO THREADS RACE TO COMPILE THE SAME SCHEMA THE FIRST
+            // ONE WINS AND THE OTHER IS THROWN AWAY
+            SchemaFactory factory = SchemaFactory.newInstance(SCHEMA_STANDARD_SPEC_URL);
+            schema = factory.newSchema(new File(schemaPath));
+            Schema firstSchema = schemas.putIfAbsent(schemaPath, schema);
+            if (firstSchema != null)
+            {
+                schema = firstSchema;
+            }
+        }
+        return schema;
+    }
+    
+    /**
+     * Private helper method that gets this thread's validator for the
+     * xsdFile, ready to validate another document.
+     */
+    private Validator getValidator(String xsdFile) throws SAXException
+    {
+        HashMap<String, Validator> threadValidators = validators.get();
+        Validator validator = threadValidators.get(xsdFile);
+        if (validator == null)
+        {
+            validator = getSchema(xsdFile).newValidator();
+            threadValidators.put(xsdFile, validator);
+        }
+        else
+        {
+            validator.reset();
+        }
+        validator.setErrorHandler(FAIL_ON_ERROR_HANDLER);
+        return validator;
+    }
+    
+    /**
+     * Private helper method that gets this thread's document builder for
+     * the xsdFile, which validates documents against the schema while it
+     * parses them, ready to parse another document.
+     */
+    private DocumentBuilder getDocumentBuilder(String xsdFile)
+            throws SAXException, ParserConfigurationException
+    {
+        HashMap<String, DocumentBuilder> threadBuilders = documentBuilders.get();
+        DocumentBuilder db = threadBuilders.get(xsdFile);
+        if (db == null)
+        {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setSchema(getSchema(xsdFile));
+            db = dbf.newDocumentBuilder();
+            threadBuilders.put(xsdFile, db);
+        }
+        else
+        {
+            db.reset();
+        }
+        db.setErrorHandler(FAIL_ON_ERROR_HANDLER);
+        return db;
+    }
+    
     /**
      * This method extracts the data found in the doc argument that 
      * corresponds to the tagName and returns it as text. If no data